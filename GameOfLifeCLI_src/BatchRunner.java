@@ -0,0 +1,403 @@
+/*
+  BATCH RUNNER:
+  Runs many independent simulations in one JVM, so that JVM startup and JIT
+  warmup are paid once for the whole batch instead of once per run. Each
+  line of a job file holds the arguments of one run, as given to a single
+  run on the command line:
+
+    # lines starting with # are comments
+    --seed acorn --width 300 --height 300 --generations 5000
+    --seed r-pentomino --rule highlife --detect-cycles 100
+    --seed breeder1.rle --engine unbounded --generations 2000
+
+  Jobs that may be given are --seed, --density, --random-seed, --width,
+  --height, --generations, --engine, --fuse, --topology, --rule and
+  --detect-cycles. A job steps its board on
+  the thread that runs it; the parallel engine steps as the counting engine,
+  and the offheap engine on a single thread, since the batch already keeps
+  every thread busy.
+
+  Jobs run as tasks on a work-stealing ForkJoinPool, one simulation per
+  task. Boards are pooled by size: a finished job hands its pair of
+  populations back, and the next job of the same size clears and reuses
+  them, so a batch allocates at most one board pair per thread and size.
+  The packed pairs of the tiled engine and the off-heap pairs of the
+  offheap engine are pooled the same way, each in a pool of their own.
+  A pool keeps at most one spare pair per thread of a size, and only the
+  MAX_POOLED_SIZES sizes used last; the pairs of older sizes are dropped,
+  and off-heap pairs released, so a batch of soups in many sizes does not
+  hold on to every board it ever made.
+
+  RESULTS:
+  One line per job is written as soon as the job completes, so lines come
+  in the order jobs finish; the job column is the job's line number in the
+  job file.
+  csv   job,seed,rows,cols,rule,generations,population,stable_from,period,millis
+  json  the same fields as one JSON object per line
+  generations is the number of generations run, fewer than asked for if
+  --detect-cycles found a cycle; stable_from and period are empty (null)
+  if it did not. A job that fails is reported on standard error and the
+  batch goes on with the others.
+*/
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class BatchRunner {
+
+  static final int MAX_POOLED_SIZES = 8;
+
+  private final ForkJoinPool pool;
+  private final boolean json;
+  private final BoardPool<boolean[][]> boards;
+  private final BoardPool<PackedGrid> packedBoards;
+  private final BoardPool<OffHeapGrid> offHeapBoards;
+  private final AtomicInteger failed = new AtomicInteger();
+
+  /**
+  * @param  threads the number of jobs to run at once
+  * @param  json true for JSON result lines, false for CSV
+  */
+  public BatchRunner(int threads, boolean json) {
+    this.pool = new ForkJoinPool(threads);
+    this.json = json;
+    this.boards = new BoardPool<>(threads, Seeds::wasteland, board -> { });
+    this.packedBoards = new BoardPool<>(threads, Seeds::wasteland, grid -> { });
+    this.offHeapBoards = new BoardPool<>(threads, OffHeapGrid::clear, OffHeapGrid::release);
+  }
+
+  /**
+  * Runs the job file the options name and returns the exit status: 0 if
+  * every job ran, 1 if any failed and 2 if the job file is malformed
+  *
+  * @param  options the job file, the number of threads and the format
+  */
+  static int main(RunOptions options) {
+    List<Job> jobs;
+    try {
+      jobs = readJobs(Paths.get(options.batch));
+    } catch (IOException e) {
+      System.err.println(options.batch + ": " + e.getMessage());
+      return 2;
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return 2;
+    }
+    BatchRunner runner = new BatchRunner(Math.max(1, options.threads), options.format.equals("json"));
+    try {
+      return (runner.run(jobs) > 0) ? 1 : 0;
+    } finally {
+      runner.shutdown();
+    }
+  }
+
+  /**
+  * One line of a job file
+  */
+  public static final class Job {
+    public final int line;
+    public final RunOptions options;
+
+    Job(int line, RunOptions options) {
+      this.line = line;
+      this.options = options;
+    }
+  }
+
+  /**
+  * Reads a job file, one run's arguments per line
+  *
+  * @param  file the job file
+  * @throws IOException if the file cannot be read
+  * @throws IllegalArgumentException if a line is not a valid job
+  */
+  public static List<Job> readJobs(Path file) throws IOException {
+    List<Job> jobs = new ArrayList<>();
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i).trim();
+      if (line.isEmpty() || line.startsWith("#"))
+        continue;
+      try {
+        RunOptions job = RunOptions.parse(line.split("\\s+"));
+        if (job.interval > 0 || job.checkpoint != null || job.resume != null || job.batch != null)
+          throw new IllegalArgumentException("a batch job cannot print, save or resume snapshots");
+        GameOfLifeCLI.validate(job);
+        if (job.rule == null)
+          job.rule = Rule.LIFE;
+        jobs.add(new Job(i + 1, job));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(file + ", line " + (i + 1) + ": " + e.getMessage(), e);
+      }
+    }
+    return jobs;
+  }
+
+  /**
+  * Runs every job and writes a result line as each one completes. Returns
+  * once all jobs have finished.
+  *
+  * @param  jobs the jobs, as read by readJobs()
+  * @return the number of jobs that failed
+  */
+  public int run(List<Job> jobs) {
+    if (!json)
+      System.out.println("job,seed,rows,cols,rule,generations,population,stable_from,period,millis");
+    failed.set(0);
+    List<ForkJoinTask<?>> tasks = new ArrayList<>();
+    for (Job job : jobs)
+      tasks.add(pool.submit(() -> runJob(job)));
+    for (ForkJoinTask<?> task : tasks)
+      task.join();
+    return failed.get();
+  }
+
+  /**
+  * Stops the worker threads
+  */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  private void runJob(Job job) {
+    long start = System.nanoTime();
+    try {
+      long[] result = (job.options.engine == 'u') ? runSparse(job.options) : runBounded(job.options);
+      report(job, result, (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      System.err.println("job " + job.line + ": " + e.getMessage());
+    }
+  }
+
+  /**
+  * Runs a job on a pooled board
+  *
+  * @return {rows, cols, generations run, population, stable from, period},
+  *         with -1 and 0 for the last two if no cycle was found
+  */
+  private long[] runBounded(RunOptions job) {
+    int[] layout = GameOfLifeCLI.layout(job);
+    GenerationBuffer<boolean[][]> generations = borrow(layout[0], layout[1]);
+    try {
+      GameOfLifeCLI.plant(generations.current(), job, layout[2], layout[3]);
+      if (job.engine == 't' || job.engine == 'o') {
+        if (job.engine == 't')
+          runTiled(generations, job);
+        else
+          runOffHeap(generations, job);
+        return new long[] {layout[0], layout[1], generations.generation(),
+                           GameOfLifeCLI.population(generations.current()), -1, 0};
+      }
+      Engine engine;
+      switch (job.engine) {
+        case 'a':  engine = new ActiveRegionEngine(job.rule);
+                   break;
+        case 'v':  engine = new VectorEngine(job.torus, job.rule);
+                   break;
+        default:   HaloEngine halo = new HaloEngine(job.torus, job.rule);
+                   // counting notes the rows that changed, for the cycle detector
+                   halo.setCounting(job.cycleHistory > 0);
+                   engine = halo;
+                   break;
+      }
+      CycleDetector cycles = (job.cycleHistory > 0)
+          ? new CycleDetector(job.cycleHistory, generations.current(), 0)
+          : null;
+      while (generations.generation() < job.generations) {
+        generations.advance(engine::generate);
+        if (cycles != null
+            && cycles.update(generations.next(), generations.current(), generations.generation(), engine))
+          break;
+      }
+      return new long[] {layout[0], layout[1], generations.generation(),
+                         GameOfLifeCLI.population(generations.current()),
+                         (cycles != null) ? cycles.stableFrom() : -1,
+                         (cycles != null) ? cycles.period() : 0};
+    } finally {
+      giveBack(generations);
+    }
+  }
+
+  /**
+  * Runs a job's generations on a packed copy of its board with the tiled 
+  * engine and unpacks the result into the board
+  */
+  private void runTiled(GenerationBuffer<boolean[][]> generations, RunOptions job) {
+    boolean[][] board = generations.current();
+    int rows = board.length;
+    int cols = board[0].length;
+    GenerationBuffer<PackedGrid> packed = packedBoards.borrow(key(rows, cols),
+        () -> GenerationBuffer.ofPacked(rows, cols));
+    try {
+      packed.current().load(board);
+      new TiledEngine(job.fuse, job.rule).advance(packed, job.generations);
+      packed.current().store(board);
+      generations.setGeneration(packed.generation());
+    } finally {
+      packedBoards.giveBack(key(rows, cols), packed);
+    }
+  }
+
+  /**
+  * Runs a job's generations on an off-heap copy of its board and unpacks 
+  * the result into the board
+  */
+  private void runOffHeap(GenerationBuffer<boolean[][]> generations, RunOptions job) {
+    boolean[][] board = generations.current();
+    int rows = board.length;
+    int cols = board[0].length;
+    GenerationBuffer<OffHeapGrid> offHeap = offHeapBoards.borrow(key(rows, cols),
+        () -> GenerationBuffer.ofOffHeap(rows, cols));
+    try {
+      offHeap.current().load(board, 0, 0);
+      while (offHeap.generation() < job.generations)
+        offHeap.advance((current, next) -> PackedEngine.generate(current, next, job.rule));
+      offHeap.current().store(board, 0, 0);
+      generations.setGeneration(offHeap.generation());
+    } finally {
+      offHeapBoards.giveBack(key(rows, cols), offHeap);
+    }
+  }
+
+  /**
+  * Runs a job on an unbounded plane, seeded on a board of the job's size
+  */
+  private long[] runSparse(RunOptions job) {
+    int[] layout = GameOfLifeCLI.layout(job);
+    GenerationBuffer<boolean[][]> generations = borrow(layout[0], layout[1]);
+    Universe universe;
+    try {
+      GameOfLifeCLI.plant(generations.current(), job, layout[2], layout[3]);
+      universe = SparseUniverse.fromMatrix(generations.current(), 0, 0, job.rule);
+    } finally {
+      giveBack(generations);
+    }
+    universe.advance(job.generations);
+    return new long[] {layout[0], layout[1], job.generations, universe.population(), -1, 0};
+  }
+
+  /**
+  * Returns a dead pair of populations of the given size, reusing one a
+  * finished job gave back if there is one
+  */
+  private GenerationBuffer<boolean[][]> borrow(int rows, int cols) {
+    return boards.borrow(key(rows, cols), () -> GenerationBuffer.ofMatrix(rows, cols));
+  }
+
+  private void giveBack(GenerationBuffer<boolean[][]> generations) {
+    boolean[][] current = generations.current();
+    int cols = (current.length > 0) ? current[0].length : 0;
+    boards.giveBack(key(current.length, cols), generations);
+  }
+
+  private static long key(int rows, int cols) {
+    return ((long) rows << 32) | cols;
+  }
+
+  /**
+  * Spare pairs of populations of one kind, by size. At most perSize pairs
+  * of a size are kept, for the sizes used most recently, up to
+  * MAX_POOLED_SIZES of them; a pair that does not fit is released.
+  */
+  private static final class BoardPool<T> {
+    // access order, so the eldest entry is the size used longest ago
+    private final LinkedHashMap<Long, ArrayDeque<GenerationBuffer<T>>> free =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final int perSize;
+    private final Consumer<T> clear;
+    private final Consumer<T> release;
+
+    /**
+    * @param  perSize the most spare pairs kept of one size
+    * @param  clear kills every cell of a board
+    * @param  release lets go of a board that is dropped from the pool
+    */
+    BoardPool(int perSize, Consumer<T> clear, Consumer<T> release) {
+      this.perSize = perSize;
+      this.clear = clear;
+      this.release = release;
+    }
+
+    /**
+    * Returns a spare pair of the given size with its current board cleared,
+    * or a new pair if there is none
+    *
+    * @param  key the size of the pair, as returned by key
+    * @param  create makes a new dead pair of that size
+    */
+    GenerationBuffer<T> borrow(long key, Supplier<GenerationBuffer<T>> create) {
+      GenerationBuffer<T> generations;
+      synchronized (this) {
+        ArrayDeque<GenerationBuffer<T>> spares = free.get(key);
+        generations = (spares != null) ? spares.poll() : null;
+      }
+      if (generations == null)
+        return create.get();
+      clear.accept(generations.current());
+      generations.resetGeneration();
+      return generations;
+    }
+
+    /**
+    * Keeps a pair for the next job of its size, or releases it if the pool
+    * is full, and releases the pairs of sizes that fall out of the pool
+    */
+    void giveBack(long key, GenerationBuffer<T> generations) {
+      List<GenerationBuffer<T>> dropped = new ArrayList<>();
+      synchronized (this) {
+        ArrayDeque<GenerationBuffer<T>> spares = free.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (spares.size() < perSize)
+          spares.add(generations);
+        else
+          dropped.add(generations);
+        Iterator<ArrayDeque<GenerationBuffer<T>>> eldest = free.values().iterator();
+        while (free.size() > MAX_POOLED_SIZES) {
+          dropped.addAll(eldest.next());
+          eldest.remove();
+        }
+      }
+      for (GenerationBuffer<T> pair : dropped) {
+        release.accept(pair.current());
+        release.accept(pair.next());
+      }
+    }
+  }
+
+  /**
+  * Writes the result line of a job
+  */
+  private void report(Job job, long[] result, long millis) {
+    RunOptions options = job.options;
+    boolean stable = result[4] >= 0;
+    String line;
+    if (json) {
+      line = "{\"job\":" + job.line + ",\"seed\":\"" + escape(options.seed) + "\",\"rows\":" + result[0]
+          + ",\"cols\":" + result[1] + ",\"rule\":\"" + options.rule + "\",\"generations\":" + result[2]
+          + ",\"population\":" + result[3] + ",\"stable_from\":" + (stable ? result[4] : "null")
+          + ",\"period\":" + (stable ? result[5] : "null") + ",\"millis\":" + millis + "}";
+    } else {
+      line = job.line + "," + options.seed + "," + result[0] + "," + result[1] + "," + options.rule + ","
+          + result[2] + "," + result[3] + "," + (stable ? result[4] : "") + ","
+          + (stable ? result[5] : "") + "," + millis;
+    }
+    System.out.println(line);
+  }
+
+  private static String escape(String text) {
+    return text.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
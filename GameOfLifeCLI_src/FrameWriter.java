@@ -0,0 +1,123 @@
+/*
+  FRAME WRITER:
+  Prints populations to standard output as text frames. A frame is built in
+  a byte buffer that is reused from frame to frame and written with a single
+  call, instead of one printf per cell.
+
+  Frames go through System.out, or straight to a FileChannel when one is
+  given (e.g. for standard output redirected to a file), which skips the
+  PrintStream and its locking altogether.
+
+  FRAME FORMAT:
+  --------
+  |*     |
+  |  * * |
+  --------
+  Each cell is two characters wide: "* " for a living cell and "  " for a dead
+  one. The borders are two dashes per cell plus two for the corners. A
+  frame is one byte array, so it can be at most MAX_FRAME bytes, about a
+  billion cells.
+*/
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class FrameWriter {
+
+  // the longest array most JVMs can allocate
+  static final int MAX_FRAME = Integer.MAX_VALUE - 8;
+
+  private final FileChannel channel;
+  private byte[] buffer = new byte[0];
+  private boolean failed; // like PrintStream, stop writing after an error
+
+  /**
+  * Creates a writer that prints through System.out
+  */
+  public FrameWriter() {
+    this(null);
+  }
+
+  /**
+  * Creates a writer that writes to a channel, or through System.out if
+  * channel is null
+  */
+  public FrameWriter(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+  * Creates a writer for standard output: a FileChannel when standard output
+  * is redirected, otherwise System.out
+  */
+  public static FrameWriter forStandardOutput() {
+    if (System.console() != null)
+      return new FrameWriter();
+    return new FrameWriter(new FileOutputStream(FileDescriptor.out).getChannel());
+  }
+
+  /**
+  * Prints a 2-dimensional boolean array of any dimension as one frame
+  *
+  * @param  m a 2-dimensional boolean array
+  * @throws IllegalArgumentException if the frame would be larger than
+  *         MAX_FRAME bytes
+  */
+  public void print(boolean[][] m) {
+    int cols = (m.length > 0) ? m[0].length : 0;
+    long border = 2L * (cols + 1) + 1;   // dashes and newline
+    long line = 2L * cols + 3;           // '|', cells, '|' and newline
+    long size = 2 * border + m.length * line;
+    if (size > MAX_FRAME)
+      throw new IllegalArgumentException("a " + m.length + "x" + cols + " board makes a frame of " + size 
+          + " bytes, more than the " + MAX_FRAME + " a frame can hold");
+    if (buffer.length < size)
+      buffer = new byte[(int) size];
+
+    byte[] b = buffer;
+    int n = border(b, 0, cols);
+    for (int i = 0; i < m.length; i++) {
+      b[n++] = '|';
+      boolean[] row = m[i];
+      for (int j = 0; j < row.length; j++) {
+        b[n++] = (byte) (row[j] ? '*' : ' ');
+        b[n++] = ' ';
+      }
+      b[n++] = '|';
+      b[n++] = '\n';
+    }
+    n = border(b, n, cols);
+    write(b, n);
+  }
+
+  private static int border(byte[] b, int n, int cols) {
+    for (int i = 0; i <= cols; i++) {
+      b[n++] = '-';
+      b[n++] = '-';
+    }
+    b[n++] = '\n';
+    return n;
+  }
+
+  private void write(byte[] b, int length) {
+    if (channel == null) {
+      System.out.write(b, 0, length);
+      System.out.flush();
+      return;
+    }
+    // anything printed with System.out so far must come first
+    System.out.flush();
+    if (failed)
+      return;
+    try {
+      ByteBuffer bytes = ByteBuffer.wrap(b, 0, length);
+      while (bytes.hasRemaining())
+        channel.write(bytes);
+    } catch (IOException e) {
+      failed = true; // e.g. a closed pipe
+    }
+  }
+}
@@ -45,36 +45,181 @@ A dead cell can be birthed through reproduction if it is surrounded by exactly
 three living neighbors.
 */
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class GameOfLifeCLI {
   
+  // the largest off-heap board drawn with --format board: 16M cells, a 32 MB frame
+  static final long MAX_DRAWN_CELLS = 1L << 24;
+
+  private static final String[] SEED_NAMES = {"r-pentomino", "b-heptomino", 
+        "pi-heptomino", "acorn", "glider", "block-glider", "soup"};
+  
+  private static FrameWriter frames = new FrameWriter();
+  
   public static void main(String[] args) {
-    String[] seedNames = {"r-pentomino", "b-heptomino", "pi-heptomino", 
-          "acorn", "glider", "block-glider"}; // initialize seed names
+    if (args.length > 0 && args[0].equals("--population-at")) {
+      try {
+        // the only other option HashLife can honor is the rule
+        if (args.length != 3 && !(args.length == 5 && args[3].equals("--rule")))
+          throw new IllegalArgumentException("--population-at takes a seed, a generation "
+              + "and optionally --rule RULE, nothing else");
+        Rule rule = (args.length == 5) ? Rule.parse(args[4]) : Rule.LIFE;
+        long generation = RunOptions.longNumber("--population-at", args[2]);
+        if (generation < 0)
+          throw new IllegalArgumentException("--population-at needs a generation of at least 0");
+        if (generation > HashLife.MAX_GENERATIONS)
+          throw new IllegalArgumentException("--population-at jumps at most " + HashLife.MAX_GENERATIONS 
+              + " generations");
+        printPopulationAt(args[1], generation, rule);
+      } catch (IllegalArgumentException e) {
+        System.err.println(e.getMessage());
+        System.err.println(RunOptions.USAGE);
+        System.exit(2);
+      } catch (IllegalStateException | UncheckedIOException e) {
+        System.err.println(e.getMessage());
+        System.exit(1);
+      }
+      return;
+    }
+    if (args.length == 1 && args[0].equals("--help")) {
+      System.out.println(RunOptions.USAGE);
+      return;
+    }
+    
+    // with arguments, run without prompting so scripts never block on stdin
+    RunOptions options;
+    if (args.length > 0) {
+      try {
+        options = RunOptions.parse(args);
+        if (options.batch == null)
+          validate(options);
+      } catch (IllegalArgumentException e) {
+        System.err.println(e.getMessage());
+        System.err.println(RunOptions.USAGE);
+        System.exit(2);
+        return;
+      }
+    } else {
+      options = prompt();
+    }
+    if (options.batch != null) {
+      System.exit(BatchRunner.main(options));
+      return;
+    }
+    frames = FrameWriter.forStandardOutput();
+    try {
+      simulate(options);
+    } catch (IllegalArgumentException | UncheckedIOException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+  }
+  
+  /**
+  * Asks the user for the seed, the number of generations, how to print them 
+  * and the engine
+  */
+  private static RunOptions prompt() {
+    RunOptions options = new RunOptions();
     
     // list seed pattern choices for user
     System.out.println("Available seed patterns:");
-    for (int i = 0; i < seedNames.length; i++)
-    System.out.printf("\t%d) %s\n", i, seedNames[i]);
+    for (int i = 0; i < SEED_NAMES.length; i++)
+    System.out.printf("\t%d) %s\n", i, SEED_NAMES[i]);
     
     // get input from user
     Scanner sc = new Scanner(System.in);
     System.out.println("Enter desired seed pattern: ");
-    int num = sc.nextInt();  
+    options.seed = SEED_NAMES[sc.nextInt()];
     System.out.println("Enter number of generations: ");
-    int numOfSteps = sc.nextInt();
+    options.generations = sc.nextInt();
     System.out.println("Show each generation? y/n: ");
     char showGenerations = sc.next().charAt(0);
+    if (showGenerations == 'y') {
+      System.out.println("Print every Nth generation (1 for all): ");
+      options.interval = Math.max(1, sc.nextInt());
+    }
+    System.out.println("Engine: (c)ounting, (p)arallel, (a)ctive regions, (t)iled, (v)ector, (o)ff-heap, " 
+        + "(u)nbounded plane: ");
+    options.engine = sc.next().charAt(0);
+    if (options.engine == 'p' || options.engine == 'o') {
+      System.out.println("Number of threads: ");
+      options.threads = sc.nextInt();
+    }
     sc.close();
+    return options;
+  }
+  
+  /**
+  * Checks that the options name a known seed and an engine that supports 
+  * the rest of the options
+  *
+  * @throws IllegalArgumentException if they do not
+  */
+  static void validate(RunOptions options) {
+    if (!Arrays.asList(SEED_NAMES).contains(options.seed) && !PatternReader.isPatternFile(options.seed))
+      throw new IllegalArgumentException("unknown seed " + options.seed);
+    if (options.engine == 'u' && (options.checkpoint != null || options.resume != null))
+      throw new IllegalArgumentException("snapshots need a bounded engine, not the unbounded plane");
+    if (options.torus && (options.engine == 'u' || options.engine == 'a' || options.engine == 't' 
+        || options.engine == 'o'))
+      throw new IllegalArgumentException("the torus needs the counting or parallel engine");
+    if (options.engine == 'u' && options.cycleHistory > 0)
+      throw new IllegalArgumentException("cycle detection needs a bounded engine, not the unbounded plane");
+    if (options.engine == 't' && options.cycleHistory > 0)
+      throw new IllegalArgumentException("cycle detection needs every generation, which the tiled engine skips");
+    if (options.engine == 'o' && options.cycleHistory > 0)
+      throw new IllegalArgumentException("cycle detection keeps generations on the heap, which the offheap " 
+          + "engine avoids");
+  }
+  
+  /**
+  * Seeds a board as the options describe and runs it with the chosen engine
+  *
+  * @param  options the seed, board size, engine and output of the run
+  */
+  public static void simulate(RunOptions options) {
+    validate(options);
+    if (options.engine == 'o') {
+      // the board never exists as a boolean array, however large it is
+      runOffHeap(options);
+      return;
+    }
+    if (options.resume != null) {
+      runEngine(restore(options.resume, options), options);
+      return;
+    }
+    if (options.rule == null)
+      options.rule = Rule.LIFE;
     
+    int[] layout = layout(options);
+    GenerationBuffer<boolean[][]> generations = GenerationBuffer.ofMatrix(layout[0], layout[1]);
+    plant(generations.current(), options, layout[2], layout[3]);
+    runEngine(generations, options);
+  }
+  
+  /**
+  * Returns the board size and the seed's position the options ask for, as 
+  * {rows, cols, seed row, seed col}
+  *
+  * @throws IllegalArgumentException if a pattern file is larger than the board
+  * @throws UncheckedIOException if a pattern file cannot be read
+  */
+  static int[] layout(RunOptions options) {
     // initialize population size and seed origin position
     int rowSize = 0; // number of rows in the population matrix
     int colSize = 0; // number of columns in the population matrix
     int seedRowPos = 0; // the row value of seed's origin position
     int seedColPos = 0; // the column value of seed's origin position
+    int[] patternSize = PatternReader.isPatternFile(options.seed) ? patternSize(options.seed) : null;
     
-    switch (seedNames[num]) {
+    switch (options.seed) {
       case "r-pentomino":  rowSize = 20;
       colSize = 20;
       seedRowPos = rowSize/2;
@@ -110,455 +255,640 @@ public class GameOfLifeCLI {
                             seedRowPos = rowSize/3;
                             seedColPos = colSize/2;
                             break;
-      default:  break; // initialize a 0x0 matrix, no seed
+      
+      case "soup":  rowSize = 100;
+                    colSize = 100;
+                    seedRowPos = rowSize/2;
+                    seedColPos = colSize/2;
+                    break;
+      default:  if (patternSize != null) {
+                  // a pattern file gets as much room again to grow into
+                  rowSize = Math.max(20, 2 * patternSize[0]);
+                  colSize = Math.max(20, 2 * patternSize[1]);
+                  seedRowPos = rowSize/2;
+                  seedColPos = colSize/2;
+                }
+                break; // otherwise initialize a 0x0 matrix, no seed
     }
     
-    boolean[][] currentGen = new boolean[rowSize][colSize];
-    boolean[][] nextGen = new boolean[rowSize][colSize];
-    
-    seed(currentGen, seedNames[num], seedRowPos, seedColPos);
-    run(currentGen, nextGen, numOfSteps, showGenerations);
+    // keep the seed at the same relative position on a board of another size; 
+    // every seed reaches at most 1 row and 3 columns away from its origin
+    if (options.rows > 0 && rowSize > 0) {
+      seedRowPos = Math.max(1, Math.min(options.rows - 2, seedRowPos * options.rows / rowSize));
+      rowSize = options.rows;
+    }
+    if (options.cols > 0 && colSize > 0) {
+      seedColPos = Math.max(3, Math.min(options.cols - 4, seedColPos * options.cols / colSize));
+      colSize = options.cols;
+    }
+    if (patternSize != null && (patternSize[0] > rowSize || patternSize[1] > colSize))
+      throw new IllegalArgumentException(options.seed + " is " + patternSize[0] + "x" + patternSize[1] 
+          + " cells, larger than the board");
+    return new int[] {rowSize, colSize, seedRowPos, seedColPos};
   }
   
   /**
-  * 
-  * @param  currentGen two-dimensional boolean array that holds the state of 
-  *                    the current population
-  * @param  nextGen two-dimensional boolean array to be initialized with the 
-  *                 state of the population in currentGen after the Game of 
-  *                  Life rules are applied
-  * @param  numOfSteps integer value of the number of generations to iterate
-  * @param  showGenerations print every generation if value is 'y', otherwise
-  *                         print only initial and final population
+  * Runs a seeded or restored population with the engine the options name
   */
-  public static void run(boolean[][] currentGen, boolean[][] nextGen, int numOfSteps, char showGenerations) {
-    System.out.println("Starting Population:\n");
-    printMatrix(currentGen);
-    for (int i = 0; i < numOfSteps; i++) {
-      generate(currentGen, nextGen);
-      if (showGenerations == 'y') {
-        System.out.println("Generation " + i + ":");
-        printMatrix(currentGen);
+  private static void runEngine(GenerationBuffer<boolean[][]> generations, RunOptions options) {
+    // only the metric formats print births and deaths, which slow the halo engines down;
+    // cycle detection needs the rows that changed, which are noted as they are counted
+    boolean counting = options.format.equals("csv") || options.format.equals("json") 
+        || options.cycleHistory > 0;
+    switch (options.engine) {
+      case 'u':  runSparse(SparseUniverse.fromMatrix(generations.current(), 0, 0, options.rule), 
+                                   options);
+                 break;
+      case 'p':  ParallelEngine parallel = new ParallelEngine(Math.max(1, options.threads), options.torus, 
+                                                         options.rule);
+                 parallel.setCounting(counting);
+                 run(generations, options, parallel);
+                 parallel.shutdown();
+                 break;
+      case 'a':  ActiveRegionEngine active = new ActiveRegionEngine(options.rule);
+                 run(generations, options, active);
+                 break;
+      case 't':  runTiled(generations, options);
+                 break;
+      case 'v':  if (!VectorEngine.isAccelerated())
+                   System.err.println("The Vector API is not available, stepping with scalar code; "
+                       + "run java with --add-modules jdk.incubator.vector");
+                 run(generations, options, new VectorEngine(options.torus, options.rule));
+                 break;
+      default:   HaloEngine halo = new HaloEngine(options.torus, options.rule);
+                 halo.setCounting(counting);
+                 run(generations, options, halo);
+                 break;
+    }
+  }
+  
+  /**
+  * Steps a population to the last generation, or, with cycle detection, 
+  * until it repeats an earlier generation
+  *
+  * @param  generations the current population and the scratch population 
+  *                     the next generation is written into
+  * @param  options the number of generations to iterate, which of them to 
+  *                 print and in which format
+  * @param  engine computes each generation; if it does not count births and 
+  *                deaths, only the population is counted when printed
+  */
+  public static void run(GenerationBuffer<boolean[][]> generations, RunOptions options, Engine engine) {
+    GenerationStats stats = engine.stats();
+    GenerationStats start = new GenerationStats();
+    start.set(population(generations.current()), 0, 0);
+    report(options, generations.generation(), 's', start, 0, () -> printMatrix(generations.current()));
+    LatencyHistogram latency = new LatencyHistogram();
+    GenerationStats scratch = new GenerationStats();
+    boolean stepped = false;
+    long nanos = 0;
+    CycleDetector cycles = (options.cycleHistory > 0) 
+        ? new CycleDetector(options.cycleHistory, generations.current(), generations.generation()) 
+        : null;
+    boolean stable = false;
+    while (generations.generation() < options.generations) {
+      long begin = System.nanoTime();
+      generations.advance(engine::generate);
+      nanos = System.nanoTime() - begin;
+      latency.record(nanos);
+      stepped = true;
+      long generation = generations.generation();
+      // after the swap, next() still holds the generation before
+      if (cycles != null && cycles.update(generations.next(), generations.current(), generation, engine)) {
+        stable = true;
+        break;
+      }
+      if (generation == options.generations)
+        break;
+      if (options.prints(generation)) {
+        report(options, generation, 'g', counted(stats, scratch, generations.current()), nanos, 
+               () -> printMatrix(generations.current()));
       }
+      if (options.checkpoints(generation))
+        checkpoint(generations, options);
     }
-    System.out.println("\nFinal Population: " + numOfSteps + " generations\n");
-    printMatrix(nextGen);
+    if (options.checkpoint != null)
+      checkpoint(generations, options);
+    report(options, generations.generation(), 'f', 
+           stepped ? counted(stats, scratch, generations.current()) : start, nanos, 
+           () -> printMatrix(generations.current()));
+    if (stable)
+      reportStable(options, cycles);
+    reportLatency(options, latency);
   }
   
   /**
-  * Applies the Game of Life rules to each element in the current population 
-  * matrix and places the results in the corresponding element in the next 
-  * generation matrix.
+  * Runs a population on the tiled engine, which steps a packed copy of the 
+  * board up to options.fuse generations per pass. The board is unpacked 
+  * only for the generations that are printed or saved, and births and 
+  * deaths are not counted.
   *
-  * @param  current a two-dimensional boolean array holding the starting 
-  *                 population
-  * @param  next a two-dimensional boolean array to be initialized with the next 
-  *              generation of the population after the Game of Life rules have 
-  *              been applied to each cell in current.
+  * @param  generations the starting population; holds the final one afterwards
+  * @param  options the number of generations to iterate, which of them to 
+  *                 print and in which format
   */
-  public static void generate(boolean[][] current, boolean[][] next) {
-    for (int row = 0; row < current.length; row++) {
-      for (int col = 0; col < current[row].length; col++) {
-        next[row][col] = checkNeighbors(getNeighborhood(current, row, col));
+  private static void runTiled(GenerationBuffer<boolean[][]> generations, RunOptions options) {
+    boolean[][] board = generations.current();
+    int cols = (board.length > 0) ? board[0].length : 0;
+    GenerationBuffer<PackedGrid> packed = GenerationBuffer.ofPacked(board.length, cols);
+    packed.current().load(board);
+    packed.setGeneration(generations.generation());
+    TiledEngine engine = new TiledEngine(options.fuse, options.rule);
+    GenerationStats stats = new GenerationStats();
+    stats.set(population(board), 0, 0);
+    report(options, packed.generation(), 's', stats, 0, () -> printMatrix(board));
+    LatencyHistogram latency = new LatencyHistogram();
+    long nanos = 0;
+    while (packed.generation() < options.generations) {
+      // fuse generations up to the next one to print or save
+      long generation = packed.generation();
+      long stop = Math.min(options.generations, following(generation, options.interval));
+      if (options.checkpoint != null)
+        stop = Math.min(stop, following(generation, options.checkpointInterval));
+      long begin = System.nanoTime();
+      engine.advance(packed, stop - generation);
+      // a pass covers several generations, so each is recorded at their mean time
+      nanos = (System.nanoTime() - begin) / (stop - generation);
+      for (long g = generation; g < stop; g++)
+        latency.record(nanos);
+      if (stop == options.generations)
+        break;
+      packed.current().store(board);
+      generations.setGeneration(stop);
+      if (options.prints(stop)) {
+        stats.set(population(board), 0, 0);
+        report(options, stop, 'g', stats, nanos, () -> printMatrix(board));
       }
+      if (options.checkpoints(stop))
+        checkpoint(generations, options);
     }
-    copyMatrix(current, next);
+    packed.current().store(board);
+    generations.setGeneration(packed.generation());
+    if (options.checkpoint != null)
+      checkpoint(generations, options);
+    stats.set(population(board), 0, 0);
+    report(options, generations.generation(), 'f', stats, nanos, () -> printMatrix(board));
+    reportLatency(options, latency);
   }
   
   /**
-  * Seeds a given population with initial values.  True = alive, False = dead
+  * Runs a board kept off the heap, seeded or restored as the options say, 
+  * on the parallel engine. The board is only unpacked into an array to be 
+  * drawn, so the heap and the garbage collector's pauses stay small however 
+  * large it is. Births and deaths are not counted.
   *
-  * @param  population a two-dimensional boolean array 
+  * @param  options the seed or snapshot, the number of generations to 
+  *                 iterate, which of them to print and in which format
   */
-  private static void seed(boolean[][] population, String seed, int row, int col) {
-    //System.out.print("Initialize: " + seed);
-    switch (seed) {
-      case "r-pentomino":  Seeds.initRPentomino(population, row, col);
-      break;
-      case "b-heptomino":  Seeds.initBHeptomino(population, row, col);
-      break;
-      case "pi-heptomino": Seeds.initPiPentomino(population, row, col);
-      break; 
-      case "acorn":        Seeds.initAcorn(population, row, col);
-      break;
-      case "glider":       Seeds.initGlider(population, row, col);
-      break;
-      case "block-glider": Seeds.initBlockGlider(population, row, col);
-      break;
-      default:             Seeds.wasteland(population);
-      break;
+  private static void runOffHeap(RunOptions options) {
+    GenerationBuffer<OffHeapGrid> generations;
+    if (options.resume != null) {
+      generations = restoreOffHeap(options.resume, options);
+    } else {
+      if (options.rule == null)
+        options.rule = Rule.LIFE;
+      int[] layout = layout(options);
+      checkDrawable(layout[0], layout[1], options);
+      generations = GenerationBuffer.ofOffHeap(layout[0], layout[1]);
+      plant(generations.current(), options, layout[2], layout[3]);
+    }
+    ParallelEngine engine = new ParallelEngine(Math.max(1, options.threads), false, options.rule);
+    GenerationStats stats = new GenerationStats();
+    stats.set(generations.current().population(), 0, 0);
+    report(options, generations.generation(), 's', stats, 0, () -> printGrid(generations.current()));
+    LatencyHistogram latency = new LatencyHistogram();
+    long nanos = 0;
+    try {
+      while (generations.generation() < options.generations) {
+        long begin = System.nanoTime();
+        generations.advance(engine::generate);
+        nanos = System.nanoTime() - begin;
+        latency.record(nanos);
+        long generation = generations.generation();
+        if (generation == options.generations)
+          break;
+        if (options.prints(generation)) {
+          stats.set(generations.current().population(), 0, 0);
+          report(options, generation, 'g', stats, nanos, () -> printGrid(generations.current()));
+        }
+        if (options.checkpoints(generation))
+          checkpoint(generations.current(), generation, options);
+      }
+    } finally {
+      engine.shutdown();
+    }
+    if (options.checkpoint != null)
+      checkpoint(generations.current(), generations.generation(), options);
+    stats.set(generations.current().population(), 0, 0);
+    report(options, generations.generation(), 'f', stats, nanos, () -> printGrid(generations.current()));
+    reportLatency(options, latency);
+  }
+  
+  /**
+  * Returns the first generation after the given one that is a multiple of 
+  * interval, or Long.MAX_VALUE if interval is 0
+  */
+  private static long following(long generation, int interval) {
+    return (interval > 0) ? (generation / interval + 1) * interval : Long.MAX_VALUE;
+  }
+  
+  /**
+  * Returns the counts of the last generation: the engine's, or, if it does 
+  * not count, the population counted into scratch
+  */
+  private static GenerationStats counted(GenerationStats stats, GenerationStats scratch, 
+                                         boolean[][] population) {
+    if (stats != null)
+      return stats;
+    scratch.set(population(population), 0, 0);
+    return scratch;
+  }
+  
+  /**
+  * Saves the current population to the options' snapshot file
+  */
+  private static void checkpoint(GenerationBuffer<boolean[][]> generations, RunOptions options) {
+    try {
+      Checkpoint.save(Paths.get(options.checkpoint), generations.current(), 
+                      generations.generation(), options.rule.toString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(options.checkpoint + ": " + e.getMessage(), e);
     }
   }
   
   /**
-  * Initializes a 2-dimensional boolean array of any dimension with the values
-  * of an identically sized 2D boolean array 
+  * Saves an off-heap population to the options' snapshot file
+  */
+  private static void checkpoint(OffHeapGrid grid, long generation, RunOptions options) {
+    try {
+      Checkpoint.save(Paths.get(options.checkpoint), grid, generation, options.rule.toString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(options.checkpoint + ": " + e.getMessage(), e);
+    }
+  }
+  
+  /**
+  * Runs a population on an unbounded plane, where patterns never reach an 
+  * edge. Each printed generation shows the smallest rectangle that holds 
+  * every living cell.
   *
-  * @param  old a 2-dimensional boolean array to be written
-  * @param  copy a 2-dimension boolean array to copy
+  * @param  universe the starting population
+  * @param  options the number of generations to iterate, which of them to 
+  *                 print and in which format
   */
-  private static void copyMatrix(boolean[][] old, boolean[][] copy) {
-    for (int i = 0; i < old.length; i++)
-    for (int j = 0; j < old[i].length; j++)
-    old[i][j] = copy[i][j];
+  public static void runSparse(SparseUniverse universe, RunOptions options) {
+    GenerationStats stats = universe.stats();
+    stats.set(universe.population(), 0, 0);
+    report(options, 0, 's', stats, 0, () -> printUniverse(universe));
+    LatencyHistogram latency = new LatencyHistogram();
+    long nanos = 0;
+    for (int i = 0; i < options.generations; i++) {
+      long begin = System.nanoTime();
+      universe.step();
+      nanos = System.nanoTime() - begin;
+      latency.record(nanos);
+      if (options.prints(i + 1) && i + 1 < options.generations)
+        report(options, i + 1, 'g', stats, nanos, () -> printUniverse(universe));
+    }
+    report(options, options.generations, 'f', stats, nanos, () -> printUniverse(universe));
+    reportLatency(options, latency);
   }
   
   /**
-  * prints a 2-dimensional boolean array of any dimension to standard output
+  * Prints one generation in the format the options ask for
   *
-  * @param  m a 2-dimensional boolean array
+  * @param  options the output format
+  * @param  generation the generation number of the population
+  * @param  stage 's' for the starting, 'g' for an intermediate and 'f' for the 
+  *               final generation of the run
+  * @param  stats the population, and the births and deaths of the generation
+  * @param  nanos the time the generation took to compute, 0 for the start
+  * @param  board prints the population as text
   */
-  public static void printMatrix(boolean[][] m) {
-    for (int i = 0; i <= m[0].length; i++) {
-      System.out.print("--");
+  private static void report(RunOptions options, long generation, char stage, 
+                             GenerationStats stats, long nanos, Runnable board) {
+    long population = stats.population();
+    // with nothing to run, the start is printed as the final generation
+    boolean row = stage != 's' || generation < options.generations;
+    switch (options.format) {
+      case "csv":   if (stage == 's')
+                      System.out.println("generation,population,births,deaths,nanos");
+                    if (row)
+                      System.out.println(generation + "," + population + "," + stats.births() + "," 
+                          + stats.deaths() + "," + nanos);
+                    break;
+      case "json":  if (row)
+                      System.out.println("{\"generation\":" + generation + ",\"population\":" + population 
+                          + ",\"births\":" + stats.births() + ",\"deaths\":" + stats.deaths() 
+                          + ",\"nanos\":" + nanos + "}");
+                    break;
+      case "none":  if (stage == 'f')
+                      System.out.println(generation + " generations, " + population + " living cells");
+                    break;
+      default:      if (stage == 'f')
+                      System.out.println("\nFinal Population: " + generation + " generations, " 
+                          + population + " living cells\n");
+                    else if (stage == 's')
+                      System.out.println("Starting Population:\n");
+                    else
+                      System.out.println("Generation " + (generation - 1) + ":");
+                    board.run();
+                    break;
     }
-    System.out.print("\n");
-    for(int i = 0; i < m.length; i++) {
-      System.out.print("|");
-      for (int j = 0; j < m[i].length; j++) {
-        System.out.printf("%s ", (m[i][j] ? "*" : " "));
-      }
-      System.out.print("|\n");
+  }
+  
+  /**
+  * Prints where a run stabilized: on standard error for csv, so that the 
+  * output stays plain CSV
+  */
+  private static void reportStable(RunOptions options, CycleDetector cycles) {
+    switch (options.format) {
+      case "json":  System.out.println("{\"stabilized\":{\"generation\":" + cycles.stableFrom() 
+                        + ",\"period\":" + cycles.period() + "}}");
+                    break;
+      case "csv":   System.err.println("Stabilized at generation " + cycles.stableFrom() 
+                        + " with period " + cycles.period());
+                    break;
+      default:      System.out.println("Stabilized at generation " + cycles.stableFrom() 
+                        + " with period " + cycles.period());
+                    break;
     }
-    for (int i = 0; i <= m[0].length; i++) {
-      System.out.print("--");
+  }
+  
+  /**
+  * Prints the distribution of the time each generation took: on standard 
+  * error for csv, and not at all for none, whose output is only the count
+  */
+  private static void reportLatency(RunOptions options, LatencyHistogram latency) {
+    if (latency.count() == 0)
+      return;
+    switch (options.format) {
+      case "json":  System.out.println("{\"latency\":{\"generations\":" + latency.count() 
+                        + ",\"mean\":" + Math.round(latency.mean()) + ",\"p50\":" + latency.percentile(50) 
+                        + ",\"p90\":" + latency.percentile(90) + ",\"p99\":" + latency.percentile(99) 
+                        + ",\"p999\":" + latency.percentile(99.9) + ",\"max\":" + latency.max() + "}}");
+                    break;
+      case "none":  break;
+      case "csv":   System.err.println(latencySummary(latency));
+                    break;
+      default:      System.out.println(latencySummary(latency));
+                    break;
     }
-    System.out.print("\n");
-  }	
+  }
+  
+  private static String latencySummary(LatencyHistogram latency) {
+    return String.format("Generation time over %d generations: mean %.1f us, p50 %.1f us, " 
+        + "p99 %.1f us, max %.1f us", latency.count(), latency.mean() / 1e3, 
+        latency.percentile(50) / 1e3, latency.percentile(99) / 1e3, latency.max() / 1e3);
+  }
   
   /**
-  * Iterates through each element in a 3x3 matrix, except the middle "cell" (1,1), and
-  * tallies the number of living (true) cells found.
+  * Jumps a seed pattern to the given generation on an unbounded plane with 
+  * HashLife and prints only the number of living cells at that generation.
   *
-  * Function returns true if the cell has three living neighbors.
-  *
-  * Function returns false if the cell has greater than or less than three living neighbors.
+  * @param  seedName the name of the seed pattern, e.g. "acorn", or a .rle or 
+  *                  .cells pattern file
+  * @param  generation the generation to report
+  */
+  public static void printPopulationAt(String seedName, long generation) {
+    printPopulationAt(seedName, generation, Rule.LIFE);
+  }
+
+  /**
+  * Jumps a seed pattern to the given generation under a rule and prints the
+  * number of living cells at that generation
   *
-  * @param  neighborhood a two-dimensional boolean array consisting of a cell from the
-  *                      main population and it's surrounding neighbors.
-  */  
-  private static boolean checkNeighbors(boolean[][] neighborhood) {
-    int count = 0;
-    for (int i = 0; i < neighborhood.length; i++) {
-      for (int j = 0; j < neighborhood[i].length; j++) {
-        if (!(i == 1 && j == 1) && neighborhood[i][j]) {
-          count++;
-          //System.out.println("Match found on i=" + i + ", j=" + j);
-        }
+  * @param  seedName the name of the seed pattern, e.g. "acorn", or a .rle or 
+  *                  .cells pattern file
+  * @param  generation the generation to report
+  * @param  rule the rule to apply; B0 rules are rejected
+  * @throws IllegalArgumentException if the rule has B0, the generation is
+  *         out of HashLife's range, or the seed is not a named pattern or
+  *         an existing pattern file; a soup needs a bounded board
+  */
+  public static void printPopulationAt(String seedName, long generation, Rule rule) {
+    if (seedName.equals("soup"))
+      throw new IllegalArgumentException("--population-at needs a named pattern or a pattern file; " 
+          + "a soup fills a bounded board");
+    if (!Arrays.asList(SEED_NAMES).contains(seedName) 
+        && !(PatternReader.isPatternFile(seedName) && Files.isRegularFile(Paths.get(seedName))))
+      throw new IllegalArgumentException("unknown seed or missing pattern file " + seedName);
+    HashLife life;
+    if (PatternReader.isPatternFile(seedName)) {
+      // read straight into the quadtree, however large the pattern
+      life = new HashLife(rule);
+      try {
+        PatternReader.read(Paths.get(seedName), life::set);
+      } catch (IOException e) {
+        throw new UncheckedIOException(seedName + ": " + e.getMessage(), e);
       }
+    } else {
+      boolean[][] pattern = new boolean[3][7]; // large enough for every seed
+      seed(pattern, seedName, 1, 3);
+      life = HashLife.fromMatrix(pattern, 0, 0, rule);
     }
-    //System.out.println("Count: " + count);
-    if (neighborhood[1][1] == true && count < 2) // loneliness: cell dies from underpopulation
-    return false;
-    else if (neighborhood[1][1] == true && (count == 2 || count == 3)) // stasis: live cell continues to live on to the next generation
-    return true;
-    else if (neighborhood[1][1] == true && count > 3) // overcrowding: live cell dies from overpopulation
-    return false;
-    else if (neighborhood[1][1] == false && count == 3) // reproduction: dead cell is populated with a live cell
-    return true;
-    return neighborhood[1][1];
+    life.advance(generation);
+    System.out.println("Generation " + generation + ": " + life.population() + " living cells");
   }
   
   /**
-  * Initializes a new, two-dimensional boolean array to represent the surrounding neighborhood of 
-  * a cell in row, col of the population
+  * Applies the Game of Life rules to each element in the current population 
+  * matrix and places the results in the corresponding element in the next 
+  * generation matrix. Current is left unchanged.
   *
-  * @param  population a two-dimensional boolean array
-  * @param  row the row position of the element in population
-  * @param  col the column position of the cell in population
+  * @param  current a two-dimensional boolean array holding the starting 
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next 
+  *              generation of the population after the Game of Life rules have 
+  *              been applied to each cell in current.
   */
-  private static boolean[][] getNeighborhood(boolean[][] population, int row, int col) {
-    boolean[][] neighborhood = new boolean[3][3];
-    if (row == 0 && col == 0)
-    buildNWCorner(population, neighborhood, row, col);
-    else if (row == 0 && col == population[row].length - 1)
-    buildNECorner(population, neighborhood, row, col);
-    else if (row == (population.length - 1) && col == (population[population.length - 1].length - 1))
-    buildSECorner(population, neighborhood, row, col);
-    else if (row == (population.length - 1) && col == 0)
-    buildSWCorner(population, neighborhood, row, col);
-    else if (row == 0)
-    buildNorthEdge(population, neighborhood, row, col);
-    else if (col == (population[row].length - 1))
-    buildEastEdge(population, neighborhood, row, col);
-    else if (row == (population.length - 1))
-    buildSouthEdge(population, neighborhood, row, col);
-    else if (col == 0)
-    buildWestEdge(population, neighborhood, row, col);
-    else
-    buildNeighborhood(population, neighborhood, row, col);
-    //System.out.println("The neighborhood for cell row = " + row + ", col = " + col + " is:");
-    //printMatrix(neighborhood);
-    return neighborhood;  
+  public static void generate(boolean[][] current, boolean[][] next) {
+    CountingEngine.generate(current, next);
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from a given cell (*) at position row = i, col = j in a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * Seeds a population as the options describe: a random soup of the options' 
+  * density and random seed over the whole board, or a seed pattern with its 
+  * middle at (row, col)
   *
-  *  REGULAR NEIGHBORHOOD:
-  *  -------------------
-  *  | 0,0 | 0,1 | 0,2 |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  | 2,0 | 2,1 | 2,2 |
-  *  -------------------
+  * @param  population a two-dimensional boolean array 
+  * @param  options the seed, and a soup's density and random seed
   */
-  private static void buildNeighborhood(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
+  static void plant(boolean[][] population, RunOptions options, int row, int col) {
+    if (options.seed.equals("soup"))
+      Seeds.soup(population, options.density, options.randomSeed);
+    else
+      seed(population, options.seed, row, col);
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the north-west corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * Seeds an off-heap population as the options describe. A seed pattern is 
+  * planted in an array of its own size, which is then copied into the grid, 
+  * so the board is never unpacked.
   *
-  *  NW CORNER CELL:
-  *  row = 0, column = 0
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     | 2,1 | 2,2 |
-  *  -------------------
-  */  
-  private static void buildNWCorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = false;
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
+  * @param  grid the dead population to seed
+  * @param  options the seed, and a soup's density and random seed
+  */
+  static void plant(OffHeapGrid grid, RunOptions options, int row, int col) {
+    if (options.seed.equals("soup")) {
+      Seeds.soup(grid, options.density, options.randomSeed);
+    } else if (PatternReader.isPatternFile(options.seed)) {
+      int[] size = patternSize(options.seed);
+      boolean[][] pattern = new boolean[size[0]][size[1]];
+      PatternReader.plant(Paths.get(options.seed), pattern, size[0] / 2, size[1] / 2);
+      grid.load(pattern, row - size[0] / 2, col - size[1] / 2);
+    } else {
+      boolean[][] pattern = new boolean[3][7]; // large enough for every seed
+      seed(pattern, options.seed, 1, 3);
+      grid.load(pattern, row - 1, col - 3);
+    }
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the north-east corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * Seeds a given population with initial values.  True = alive, False = dead
   *
-  *  NE CORNER CELL NEIGHBORHOOD:
-  *  row = 0, column = population[0].length
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  | 2,0 | 2,1 |     |
-  *  -------------------
+  * @param  population a two-dimensional boolean array 
+  * @param  seed the name of a seed pattern, or a .rle or .cells pattern file 
+  *              to plant with its middle at (row, col)
   */
-  private static void buildNECorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = false;
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = false;  
+  static void seed(boolean[][] population, String seed, int row, int col) {
+    //System.out.print("Initialize: " + seed);
+    switch (seed) {
+      case "r-pentomino":  Seeds.initRPentomino(population, row, col);
+      break;
+      case "b-heptomino":  Seeds.initBHeptomino(population, row, col);
+      break;
+      case "pi-heptomino": Seeds.initPiPentomino(population, row, col);
+      break; 
+      case "acorn":        Seeds.initAcorn(population, row, col);
+      break;
+      case "glider":       Seeds.initGlider(population, row, col);
+      break;
+      case "block-glider": Seeds.initBlockGlider(population, row, col);
+      break;
+      default:             if (PatternReader.isPatternFile(seed))
+                             PatternReader.plant(Paths.get(seed), population, row, col);
+                           else
+                             Seeds.wasteland(population);
+      break;
+    }
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the south-east corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  SE CORNER CELL:
-  *  row = population.length, column = population[population.length].length
-  *  -------------------
-  *  | 0,0 | 0,1 |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSECorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = false;
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
+  * Reads a snapshot file into a new pair of populations of its size. Unless
+  * the options name a rule, the run continues under the snapshot's rule.
+  */
+  private static GenerationBuffer<boolean[][]> restore(String file, RunOptions options) {
+    try {
+      Checkpoint snapshot = Checkpoint.open(Paths.get(file));
+      if (options.rule == null)
+        options.rule = Rule.parse(snapshot.rule);
+      GenerationBuffer<boolean[][]> generations = GenerationBuffer.ofMatrix(snapshot.rows, snapshot.cols);
+      snapshot.load(generations.current());
+      generations.setGeneration(snapshot.generation);
+      return generations;
+    } catch (IOException e) {
+      throw new UncheckedIOException(file + ": " + e.getMessage(), e);
+    }
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the south-west corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  SW CORNER CELL:
-  *  row = population.length - 1, column = 0
-  *  -------------------
-  *  |     | 0,1 | 0,2 |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSWCorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = false;
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
+  * Reads a snapshot file into a new pair of off-heap populations of its 
+  * size. Unless the options name a rule, the run continues under the 
+  * snapshot's rule.
+  */
+  private static GenerationBuffer<OffHeapGrid> restoreOffHeap(String file, RunOptions options) {
+    try {
+      Checkpoint snapshot = Checkpoint.open(Paths.get(file));
+      if (options.rule == null)
+        options.rule = Rule.parse(snapshot.rule);
+      checkDrawable(snapshot.rows, snapshot.cols, options);
+      GenerationBuffer<OffHeapGrid> generations = GenerationBuffer.ofOffHeap(snapshot.rows, snapshot.cols);
+      snapshot.load(generations.current());
+      generations.setGeneration(snapshot.generation);
+      return generations;
+    } catch (IOException e) {
+      throw new UncheckedIOException(file + ": " + e.getMessage(), e);
+    }
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the north edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  NORTH EDGE CELLS:
-  *  row = 0
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  | 2,0 | 2,1 | 2,2 |
-  *  -------------------
+  * Returns the rows and columns a pattern file spans, as {rows, cols}
   */
-  private static void buildNorthEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
+  private static int[] patternSize(String file) {
+    try {
+      return PatternReader.size(Paths.get(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException(file + ": " + e.getMessage(), e);
+    }
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the east edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * prints a 2-dimensional boolean array of any dimension to standard output, 
+  * building the whole frame before writing it with a single call
   *
-  *  EAST EDGE CELLS:
-  *  column = population[population.length - 1].length - 1
-  *  -------------------
-  *  | 0,0 | 0,1 |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  | 2,0 | 2,1 |     |
-  *  -------------------
+  * @param  m a 2-dimensional boolean array
   */
-  private static void buildEastEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = false;
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = false;  
+  public static void printMatrix(boolean[][] m) {
+    frames.print(m);
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the south edge of a given population 
+  * Rejects drawing an off-heap board too large to unpack onto the heap
   *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * @throws IllegalArgumentException if the options draw the board and it
+  *         has more than MAX_DRAWN_CELLS cells
+  */
+  private static void checkDrawable(long rows, long cols, RunOptions options) {
+    if (options.format.equals("board") && (double) rows * cols > MAX_DRAWN_CELLS)
+      throw new IllegalArgumentException("a " + rows + "x" + cols + " board is too large to draw (at most " 
+          + MAX_DRAWN_CELLS + " cells); use --format none, csv or json");
+  }
+
+  /**
+  * prints an off-heap population to standard output, unpacked into an 
+  * array first, so only boards small enough to read are worth drawing
   *
-  *  SOUTH EDGE CELLS:
-  *  row = population.length - 1
-  *  -------------------
-  *  | 0,0 | 0,1 | 0,2 |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSouthEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
+  * @param  grid the population to print
+  * @throws IllegalArgumentException if the board has more than
+  *         MAX_DRAWN_CELLS cells
+  */
+  public static void printGrid(OffHeapGrid grid) {
+    if ((double) grid.rows() * grid.cols() > MAX_DRAWN_CELLS)
+      throw new IllegalArgumentException("a " + grid.rows() + "x" + grid.cols() 
+          + " board is too large to draw (at most " + MAX_DRAWN_CELLS + " cells)");
+    frames.print(grid.toMatrix(0, 0, (int) grid.rows(), (int) grid.cols()));
   }
   
   /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the west edge of a given population 
+  * Returns the number of living cells in a population
   *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
+  * @param  population a two-dimensional boolean array
+  */
+  public static long population(boolean[][] population) {
+    long count = 0;
+    for (boolean[] row : population) {
+      for (boolean cell : row) {
+        if (cell)
+          count++;
+      }
+    }
+    return count;
+  }
+  
+  /**
+  * prints the smallest rectangle of an unbounded universe that holds every 
+  * living cell to standard output
   *
-  *  WEST EDGE CELLS:
-  *  column = 0
-  *  -------------------
-  *  |     | 0,1 | 0,2 |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     | 2,1 | 2,2 |
-  *  -------------------
+  * @param  universe the universe to print
   */
-  private static void buildWestEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = false;
-    n[1][1] = p[i][j]; // the cell!
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];  
+  public static void printUniverse(SparseUniverse universe) {
+    int[] b = universe.bounds();
+    if (b == null) {
+      System.out.println("(no living cells)");
+      return;
+    }
+    printMatrix(universe.toMatrix(b[0], b[1], b[2] - b[0] + 1, b[3] - b[1] + 1));
   }
   
 }
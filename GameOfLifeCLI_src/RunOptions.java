@@ -0,0 +1,242 @@
+/*
+  RUN OPTIONS:
+  Everything a command line run needs to know: the seed, the board size, the
+  number of generations, the engine and how to print the result. The options
+  are filled either from the interactive prompts or from the command line
+  arguments, so that scripts can run the simulation without a terminal.
+
+  ARGUMENTS:
+  --seed NAME         seed pattern, e.g. acorn, soup for a random soup, or a
+                      .rle or .cells pattern file (default r-pentomino)
+  --density D         fraction of living cells in a soup, from 0 to 1
+                      (default 0.5)
+  --random-seed N     seed of the soup's random numbers; the same seed,
+                      density and size give the same soup (default 1)
+  --width COLS        number of columns, at least 7 (default depends on the
+                      seed, 100 for a soup)
+  --height ROWS       number of rows, at least 3 (default depends on the
+                      seed, 100 for a soup)
+  --generations N     number of generations to run (default 100)
+  --engine NAME       counting, parallel, active, tiled, vector, offheap or
+                      unbounded (default counting); vector needs the JVM
+                      option --add-modules jdk.incubator.vector to use SIMD;
+                      offheap keeps a packed board outside the heap, stepped
+                      on --threads threads, for boards larger than the heap
+  --fuse N            generations the tiled engine steps per pass over the
+                      board, 1 to 64 (default 8)
+  --topology NAME     plane (a dead border) or torus (wrap-around edges) for
+                      the counting and parallel engines (default plane)
+  --threads N         worker threads for the parallel and offheap engines
+                      (default: all cores)
+  --rule RULE         Life-like rule in B/S notation, e.g. B36/S23, or one of
+                      life, highlife, daynight and seeds (default life, or
+                      the rule of the --resume snapshot)
+  --format NAME       board, csv, json or none (default board)
+  --interval N        print every Nth generation, 0 for first and last only
+                      (default 0)
+  --checkpoint FILE   save the population to a snapshot file at the end of
+                      the run
+  --checkpoint-every N  also save it every N generations
+  --resume FILE       continue from a snapshot file instead of a seed; the
+                      run ends when --generations generations are reached
+  --detect-cycles N   end the run early once the population repeats one of
+                      its last N generations, i.e. has become a still life or
+                      an oscillator with a period of at most N, and report
+                      where it stabilized (default 0, run to the end)
+  --batch FILE        run every line of a job file as a run of its own,
+                      many at once in this JVM; only --threads (the number
+                      of jobs run at once) and --format (csv or json
+                      results) apply to the batch itself; see BatchRunner
+
+  OUTPUT FORMATS:
+  board  the population is drawn as text, as in the interactive program
+  csv    one "generation,population,births,deaths,nanos" line per printed
+         generation: the living cells, the births and deaths in the step to
+         that generation and the nanoseconds the step took; the tiled
+         engine fuses generations, so it writes 0 births and deaths and
+         the mean nanoseconds per generation of its last pass, and the
+         offheap engine does not count them either
+  json   the same values as one JSON object per line, followed by a
+         {"latency":{...}} line with the percentiles of the step times
+  none   only the final population count
+  board also ends with the percentiles of the step times, which csv writes
+  to standard error so that the output stays plain CSV. With
+  --detect-cycles, a run that stabilizes ends with a "Stabilized at
+  generation S with period P" line, again on standard error for csv, or a
+  {"stabilized":{...}} line for json.
+*/
+
+public class RunOptions {
+
+  public static final String USAGE =
+      "usage: GameOfLifeCLI [--seed NAME] [--width COLS] [--height ROWS] [--generations N]\n"
+    + "                     [--density D] [--random-seed N]\n"
+    + "                     [--engine counting|parallel|active|tiled|vector|offheap|unbounded]\n"
+    + "                     [--threads N] [--fuse N]\n"
+    + "                     [--topology plane|torus] [--rule RULE]\n"
+    + "                     [--format board|csv|json|none] [--interval N]\n"
+    + "                     [--checkpoint FILE] [--checkpoint-every N] [--resume FILE]\n"
+    + "                     [--detect-cycles N]\n"
+    + "       GameOfLifeCLI --batch FILE [--threads N] [--format csv|json]\n"
+    + "       GameOfLifeCLI --population-at SEED GENERATION [--rule RULE]";
+
+  public String seed = "r-pentomino";
+  public double density = 0.5; // fraction of living cells in a soup
+  public long randomSeed = 1;   // seed of a soup's random numbers
+  public int rows;          // 0 for the seed's default size
+  public int cols;          // 0 for the seed's default size
+  public int generations = 100;
+  public char engine = 'c'; // c(ounting), p(arallel), a(ctive), t(iled), v(ector), o(ff-heap) or u(nbounded)
+  public int fuse = 8;      // generations per pass of the tiled engine
+  public int threads = Runtime.getRuntime().availableProcessors();
+  public boolean torus;     // wrap the edges around instead of a dead border
+  public Rule rule;         // null for Conway's Life or the snapshot's rule
+  public String format = "board";
+  public int interval;      // print every interval-th generation, 0 for none
+  public String checkpoint; // snapshot file to save to, null for none
+  public int checkpointInterval; // save every checkpointInterval-th generation, 0 for the last only
+  public String resume;     // snapshot file to start from, null to plant the seed
+  public int cycleHistory;  // generations searched for a repeat, 0 to run to the end
+  public String batch;      // job file to run, null for a single run
+
+  /**
+  * Parses command line arguments of the form --name value
+  *
+  * @param  args the command line arguments
+  * @return the options, with defaults for every argument not given
+  * @throws IllegalArgumentException if an argument is unknown, lacks its
+  *                                  value or has an invalid value
+  */
+  public static RunOptions parse(String[] args) {
+    RunOptions options = new RunOptions();
+    for (int i = 0; i < args.length; i += 2) {
+      String name = args[i];
+      if (i + 1 >= args.length)
+        throw new IllegalArgumentException("missing value for " + name);
+      String value = args[i + 1];
+      switch (name) {
+        case "--seed":         options.seed = value;
+                               break;
+        case "--density":      options.density = fraction(name, value);
+                               break;
+        case "--random-seed":  options.randomSeed = longNumber(name, value);
+                               break;
+        case "--width":        options.cols = number(name, value, 7);
+                               break;
+        case "--height":       options.rows = number(name, value, 3);
+                               break;
+        case "--generations":  options.generations = number(name, value, 0);
+                               break;
+        case "--engine":       options.engine = engine(value);
+                               break;
+        case "--fuse":         options.fuse = number(name, value, 1);
+                               if (options.fuse > 64)
+                                 throw new IllegalArgumentException(name + " must be at most 64");
+                               break;
+        case "--threads":      options.threads = number(name, value, 1);
+                               break;
+        case "--topology":     options.torus = torus(value);
+                               break;
+        case "--rule":         options.rule = Rule.parse(value);
+                               break;
+        case "--format":       options.format = format(value);
+                               break;
+        case "--interval":     options.interval = number(name, value, 0);
+                               break;
+        case "--checkpoint":   options.checkpoint = value;
+                               break;
+        case "--checkpoint-every":  options.checkpointInterval = number(name, value, 1);
+                                    break;
+        case "--resume":       options.resume = value;
+                               break;
+        case "--detect-cycles":  options.cycleHistory = number(name, value, 0);
+                                 break;
+        case "--batch":        options.batch = value;
+                               break;
+        default:               throw new IllegalArgumentException("unknown argument " + name);
+      }
+    }
+    return options;
+  }
+
+  /**
+  * Returns true if an intermediate generation is to be printed
+  *
+  * @param  generation the number of generations run so far
+  */
+  public boolean prints(long generation) {
+    return interval > 0 && generation % interval == 0;
+  }
+
+  /**
+  * Returns true if a snapshot is to be saved before the last generation
+  *
+  * @param  generation the generation number of the population
+  */
+  public boolean checkpoints(long generation) {
+    return checkpoint != null && checkpointInterval > 0 && generation % checkpointInterval == 0;
+  }
+
+  private static int number(String name, String value, int min) {
+    int n;
+    try {
+      n = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " expects a number, not " + value);
+    }
+    if (n < min)
+      throw new IllegalArgumentException(name + " must be at least " + min);
+    return n;
+  }
+
+  static long longNumber(String name, String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " expects a number, not " + value);
+    }
+  }
+
+  private static double fraction(String name, String value) {
+    double d;
+    try {
+      d = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " expects a number, not " + value);
+    }
+    if (!(d >= 0 && d <= 1))
+      throw new IllegalArgumentException(name + " must be between 0 and 1");
+    return d;
+  }
+
+  private static char engine(String value) {
+    switch (value) {
+      case "counting":   return 'c';
+      case "parallel":   return 'p';
+      case "active":     return 'a';
+      case "tiled":      return 't';
+      case "vector":     return 'v';
+      case "offheap":    return 'o';
+      case "unbounded":  return 'u';
+      default:           throw new IllegalArgumentException("unknown engine " + value);
+    }
+  }
+
+  private static boolean torus(String value) {
+    switch (value) {
+      case "plane":  return false;
+      case "torus":  return true;
+      default:       throw new IllegalArgumentException("unknown topology " + value);
+    }
+  }
+
+  private static String format(String value) {
+    switch (value) {
+      case "board":
+      case "csv":
+      case "json":
+      case "none":  return value;
+      default:      throw new IllegalArgumentException("unknown format " + value);
+    }
+  }
+}
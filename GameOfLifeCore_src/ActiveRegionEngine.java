@@ -0,0 +1,179 @@
+/*
+  ACTIVE REGION ENGINE:
+  Steps a population while skipping the parts of the board that cannot
+  change. The board is divided into tiles of TILE x TILE cells, and the
+  engine remembers which tiles changed in the last generation. A cell can
+  only change if something in its neighborhood changed, so only tiles that
+  changed, or that border a tile that changed, are evaluated again. Empty
+  areas and still lifes cost nothing once they have settled.
+
+  Skipping a tile relies on the GenerationBuffer swap: the population being
+  written still holds the generation before current, which is identical to
+  current in every tile that did not change. The engine therefore falls back
+  to a full sweep whenever it is handed populations other than the two it
+  stepped last time, or after invalidate() is called because cells were
+  changed from outside (e.g. by seeding).
+
+  An engine keeps state between generations, so use one engine per board.
+  Skipping works for every Life-like rule, since a cell whose neighborhood
+  did not change gets the same result as in the last generation.
+
+  Births and deaths are counted in the tiles evaluated, which hold every
+  change. The population is counted directly in a full sweep and otherwise
+  follows from the last population, births and deaths.
+*/
+
+public class ActiveRegionEngine implements Engine {
+
+  static final int TILE = 16;
+
+  private final Rule rule;
+  private final GenerationStats stats = new GenerationStats();
+  private final long[] counts = new long[3]; // population, births and deaths of the tiles evaluated
+  private boolean[][] lastCurrent; // the population read by the last generation
+  private boolean[][] lastNext;    // the population written by the last generation
+  private boolean[] changed = new boolean[0];  // tiles changed by the last generation
+  private boolean[] active = new boolean[0];   // tiles to evaluate this generation
+  private int tileRows;
+  private int tileCols;
+  private long tilesEvaluated;
+
+  /**
+  * Creates an engine for the given rule
+  *
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public ActiveRegionEngine(Rule rule) {
+    this.rule = rule;
+  }
+
+  /**
+  * Creates a Game of Life engine
+  */
+  public ActiveRegionEngine() {
+    this(Rule.LIFE);
+  }
+
+  /**
+  * Applies the Game of Life rules to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population
+  */
+  public void generate(boolean[][] current, boolean[][] next) {
+    int rows = current.length;
+    int cols = (rows > 0) ? current[0].length : 0;
+    boolean full = current != lastNext || next != lastCurrent;
+    if (full)
+      resize(rows, cols);
+    counts[0] = 0;
+    counts[1] = 0;
+    counts[2] = 0;
+
+    // a tile is active if it or any of its eight neighbors changed
+    for (int tr = 0; tr < tileRows; tr++) {
+      for (int tc = 0; tc < tileCols; tc++)
+        active[tr * tileCols + tc] = full || changedAround(tr, tc);
+    }
+
+    for (int tr = 0; tr < tileRows; tr++) {
+      int rowFrom = tr * TILE;
+      int rowTo = Math.min(rows, rowFrom + TILE);
+      int tc = 0;
+      while (tc < tileCols) {
+        if (!active[tr * tileCols + tc]) {
+          changed[tr * tileCols + tc] = false;
+          tc++;
+          continue;
+        }
+        // evaluate a run of consecutive active tiles together, row by row
+        int runStart = tc;
+        while (tc < tileCols && active[tr * tileCols + tc])
+          tc++;
+        stepRun(current, next, rowFrom, rowTo, tr, runStart, tc, cols);
+      }
+    }
+
+    long population = full ? counts[0] : stats.population() + counts[1] - counts[2];
+    stats.set(population, counts[1], counts[2]);
+    lastCurrent = current;
+    lastNext = next;
+  }
+
+  /**
+  * Forces the next generation to evaluate every tile
+  */
+  public void invalidate() {
+    lastCurrent = null;
+    lastNext = null;
+  }
+
+  /**
+  * Returns the population, births and deaths of the last generation
+  */
+  public GenerationStats stats() {
+    return stats;
+  }
+
+  /**
+  * Returns, for each tile row by row, whether a cell of the tile changed in
+  * the generation that stepped current into next, or null if that was not
+  * the last generation the engine computed. The array is the engine's own
+  * and is overwritten by the next generation.
+  */
+  boolean[] changedTiles(boolean[][] current, boolean[][] next) {
+    return (current == lastCurrent && next == lastNext) ? changed : null;
+  }
+
+  /**
+  * Returns the number of tiles evaluated since the engine was created
+  */
+  public long tilesEvaluated() {
+    return tilesEvaluated;
+  }
+
+  /**
+  * Steps the tiles [tcFrom, tcTo) of tile row tr and records, tile by tile,
+  * whether any of their cells changed
+  */
+  private void stepRun(boolean[][] current, boolean[][] next, int rowFrom, int rowTo,
+                       int tr, int tcFrom, int tcTo, int cols) {
+    int rows = current.length;
+    for (int tc = tcFrom; tc < tcTo; tc++)
+      changed[tr * tileCols + tc] = false;
+    for (int row = rowFrom; row < rowTo; row++) {
+      boolean[] above = (row > 0) ? current[row - 1] : null;
+      boolean[] below = (row < rows - 1) ? current[row + 1] : null;
+      for (int tc = tcFrom; tc < tcTo; tc++) {
+        int colFrom = tc * TILE;
+        int colTo = Math.min(cols, colFrom + TILE);
+        if (CountingEngine.step(above, current[row], below, next[row], colFrom, colTo, rule, counts))
+          changed[tr * tileCols + tc] = true;
+      }
+    }
+    tilesEvaluated += tcTo - tcFrom;
+  }
+
+  private boolean changedAround(int tr, int tc) {
+    for (int r = Math.max(0, tr - 1); r <= Math.min(tileRows - 1, tr + 1); r++) {
+      for (int c = Math.max(0, tc - 1); c <= Math.min(tileCols - 1, tc + 1); c++) {
+        if (changed[r * tileCols + c])
+          return true;
+      }
+    }
+    return false;
+  }
+
+  private void resize(int rows, int cols) {
+    tileRows = (rows + TILE - 1) / TILE;
+    tileCols = (cols + TILE - 1) / TILE;
+    if (changed.length != tileRows * tileCols) {
+      changed = new boolean[tileRows * tileCols];
+      active = new boolean[tileRows * tileCols];
+    }
+  }
+}
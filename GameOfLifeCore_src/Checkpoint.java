@@ -0,0 +1,299 @@
+/*
+  CHECKPOINT:
+  Saves a population to a compact binary snapshot file and restores it, so a
+  long run can be resumed where it stopped. Files are written and read
+  through memory-mapped FileChannels: the rows are copied straight between
+  the population and the page cache, with no stream buffers in between.
+
+  FILE FORMAT (little-endian):
+  offset  size  field
+   0       4    magic number "LIFE"
+   4       4    format version, 1
+   8       4    rows
+  12       4    columns
+  16       8    generation
+  24       4    words per row, (columns + 63) / 64
+  28       4    reserved, 0
+  32      32    rule, e.g. "B3/S23", in ASCII padded with zero bytes
+  64       -    rows * words per row 64-bit words
+  Each row is packed like a PackedGrid: cell (row, col) is bit (col % 64) of
+  word (col / 64) of the row. A 16384x16384 board takes 32 MB. An
+  OffHeapGrid is saved and loaded the same way, a row at a time.
+
+  A snapshot is written to a temporary file that then replaces the old one,
+  so a run that dies while saving still leaves the previous snapshot intact.
+  The mapped regions and the file are forced to the disk before the move,
+  so a crash of the machine cannot leave a renamed but unwritten snapshot.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class Checkpoint {
+
+  private static final int MAGIC = 0x4546494C; // "LIFE" read little-endian
+  private static final int VERSION = 1;
+  private static final int HEADER = 64;
+  private static final int RULE_BYTES = 32;
+  private static final long MAX_MAPPING = 1L << 30; // bytes mapped at a time
+
+  public final int rows;
+  public final int cols;
+  public final long generation;
+  public final String rule;
+  private final Path file;
+  private final int wordsPerRow;
+
+  private Checkpoint(Path file, int rows, int cols, long generation, String rule) {
+    this.file = file;
+    this.rows = rows;
+    this.cols = cols;
+    this.generation = generation;
+    this.rule = rule;
+    this.wordsPerRow = (cols + 63) >>> 6;
+  }
+
+  /**
+  * Reads the header of a snapshot file. The population itself is read by
+  * load().
+  *
+  * @param  file the snapshot file
+  * @throws IOException if the file cannot be read or is not a snapshot
+  */
+  public static Checkpoint open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER)
+        throw new IOException("not a snapshot");
+      ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER).order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt(0) != MAGIC)
+        throw new IOException("not a snapshot");
+      if (header.getInt(4) != VERSION)
+        throw new IOException("unsupported snapshot version " + header.getInt(4));
+      int rows = header.getInt(8);
+      int cols = header.getInt(12);
+      long generation = header.getLong(16);
+      byte[] rule = new byte[RULE_BYTES];
+      header.position(32);
+      header.get(rule);
+      int length = 0;
+      while (length < RULE_BYTES && rule[length] != 0)
+        length++;
+
+      Checkpoint checkpoint = new Checkpoint(file, rows, cols, generation,
+          new String(rule, 0, length, StandardCharsets.US_ASCII));
+      if (rows < 0 || cols < 0 || header.getInt(24) != checkpoint.wordsPerRow
+          || channel.size() != HEADER + 8L * rows * checkpoint.wordsPerRow)
+        throw new IOException("truncated or corrupt snapshot");
+      return checkpoint;
+    }
+  }
+
+  /**
+  * Saves a population to a snapshot file, replacing any existing file
+  *
+  * @param  file the snapshot file
+  * @param  population a two-dimensional boolean array
+  * @param  generation the generation number of the population
+  * @param  rule the rule the population evolves under, e.g. "B3/S23"
+  * @throws IOException if the file cannot be written
+  */
+  public static void save(Path file, boolean[][] population, long generation, String rule)
+      throws IOException {
+    int cols = (population.length > 0) ? population[0].length : 0;
+    Checkpoint checkpoint = new Checkpoint(file, population.length, cols, generation, rule);
+    long[] words = new long[checkpoint.wordsPerRow];
+    checkpoint.write((buffer, row) -> {
+      pack(population[row], words);
+      buffer.put(words);
+    });
+  }
+
+  /**
+  * Saves a packed population to a snapshot file, replacing any existing file
+  *
+  * @param  file the snapshot file
+  * @param  grid the population
+  * @param  generation the generation number of the population
+  * @param  rule the rule the population evolves under, e.g. "B3/S23"
+  * @throws IOException if the file cannot be written
+  */
+  public static void save(Path file, PackedGrid grid, long generation, String rule)
+      throws IOException {
+    Checkpoint checkpoint = new Checkpoint(file, grid.rows(), grid.cols(), generation, rule);
+    long[] words = grid.words();
+    int wordsPerRow = grid.wordsPerRow();
+    checkpoint.write((buffer, row) -> buffer.put(words, row * wordsPerRow, wordsPerRow));
+  }
+
+  /**
+  * Saves an off-heap population to a snapshot file, replacing any existing
+  * file. The rows are copied one at a time, so the board never has to fit
+  * in the heap.
+  *
+  * @param  file the snapshot file
+  * @param  grid the population, at most Integer.MAX_VALUE rows and columns
+  * @param  generation the generation number of the population
+  * @param  rule the rule the population evolves under, e.g. "B3/S23"
+  * @throws IOException if the file cannot be written
+  */
+  public static void save(Path file, OffHeapGrid grid, long generation, String rule)
+      throws IOException {
+    if (grid.rows() > Integer.MAX_VALUE || grid.cols() > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("a snapshot holds at most " + Integer.MAX_VALUE 
+          + " rows and columns, not " + grid.rows() + "x" + grid.cols());
+    Checkpoint checkpoint = new Checkpoint(file, (int) grid.rows(), (int) grid.cols(), generation, rule);
+    long[] words = new long[checkpoint.wordsPerRow];
+    checkpoint.write((buffer, row) -> {
+      grid.getRow(row, words, 0);
+      buffer.put(words);
+    });
+  }
+
+  /**
+  * Reads the population into an array of the snapshot's size
+  *
+  * @param  population a two-dimensional boolean array to be overwritten
+  * @throws IOException if the file cannot be read
+  */
+  public void load(boolean[][] population) throws IOException {
+    checkSize(population.length, (population.length > 0) ? population[0].length : 0);
+    long[] words = new long[wordsPerRow];
+    read((buffer, row) -> {
+      buffer.get(words);
+      unpack(words, population[row]);
+    });
+  }
+
+  /**
+  * Reads the population into a packed grid of the snapshot's size
+  *
+  * @param  grid the population to be overwritten
+  * @throws IOException if the file cannot be read
+  */
+  public void load(PackedGrid grid) throws IOException {
+    checkSize(grid.rows(), grid.cols());
+    long[] words = grid.words();
+    long mask = grid.lastWordMask();
+    read((buffer, row) -> {
+      int base = row * wordsPerRow;
+      buffer.get(words, base, wordsPerRow);
+      if (wordsPerRow > 0)
+        words[base + wordsPerRow - 1] &= mask; // keep the bits past the last column zero
+    });
+  }
+
+  /**
+  * Reads the population into an off-heap grid of the snapshot's size
+  *
+  * @param  grid the population to be overwritten
+  * @throws IOException if the file cannot be read
+  */
+  public void load(OffHeapGrid grid) throws IOException {
+    if (grid.rows() != rows || grid.cols() != cols)
+      throw new IllegalArgumentException("snapshot is " + rows + "x" + cols
+          + ", population is " + grid.rows() + "x" + grid.cols());
+    long[] words = new long[wordsPerRow];
+    long mask = grid.lastWordMask();
+    read((buffer, row) -> {
+      buffer.get(words);
+      if (wordsPerRow > 0)
+        words[wordsPerRow - 1] &= mask; // keep the bits past the last column zero
+      grid.putRow(row, words, 0);
+    });
+  }
+
+  private void checkSize(int rows, int cols) {
+    if (rows != this.rows || cols != this.cols)
+      throw new IllegalArgumentException("snapshot is " + this.rows + "x" + this.cols
+          + ", population is " + rows + "x" + cols);
+  }
+
+  /**
+  * Copies the words of one row between a mapped region and a population
+  */
+  private interface RowCopy {
+    void copy(LongBuffer buffer, int row);
+  }
+
+  private void write(RowCopy rowCopy) throws IOException {
+    byte[] rule = this.rule.getBytes(StandardCharsets.US_ASCII);
+    if (rule.length > RULE_BYTES)
+      throw new IllegalArgumentException("rule longer than " + RULE_BYTES + " characters: " + this.rule);
+
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer header = channel.map(MapMode.READ_WRITE, 0, HEADER);
+      header.order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putLong(generation)
+            .putInt(wordsPerRow).putInt(0).put(rule);
+      mapRows(channel, MapMode.READ_WRITE, rowCopy);
+      header.force();
+      channel.force(true);
+    }
+    try {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private void read(RowCopy rowCopy) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() != HEADER + 8L * rows * wordsPerRow)
+        throw new IOException("truncated or corrupt snapshot");
+      mapRows(channel, MapMode.READ_ONLY, rowCopy);
+    }
+  }
+
+  /**
+  * Maps the rows of the file in regions of at most MAX_MAPPING bytes, since
+  * a single mapping cannot exceed 2 GB, and hands them row by row to
+  * rowCopy. Written regions are forced to the disk once they are copied.
+  */
+  private void mapRows(FileChannel channel, MapMode mode, RowCopy rowCopy) throws IOException {
+    long rowBytes = 8L * wordsPerRow;
+    int rowsPerMapping = (int) Math.max(1, Math.min(rows, MAX_MAPPING / Math.max(1, rowBytes)));
+    for (int first = 0; first < rows; first += rowsPerMapping) {
+      int count = Math.min(rowsPerMapping, rows - first);
+      MappedByteBuffer region = channel.map(mode, HEADER + first * rowBytes, count * rowBytes);
+      LongBuffer buffer = region.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+      for (int row = first; row < first + count; row++)
+        rowCopy.copy(buffer, row);
+      if (mode == MapMode.READ_WRITE)
+        region.force();
+    }
+  }
+
+  private static void pack(boolean[] row, long[] words) {
+    for (int w = 0; w < words.length; w++) {
+      long word = 0L;
+      int base = w << 6;
+      int end = Math.min(64, row.length - base);
+      for (int bit = 0; bit < end; bit++)
+        word |= (row[base + bit] ? 1L : 0L) << bit; // no branch to mispredict
+      words[w] = word;
+    }
+  }
+
+  private static void unpack(long[] words, boolean[] row) {
+    for (int w = 0; w < words.length; w++) {
+      long word = words[w];
+      int base = w << 6;
+      int end = Math.min(64, row.length - base);
+      for (int bit = 0; bit < end; bit++)
+        row[base + bit] = ((word >>> bit) & 1L) != 0;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+  COUNTING ENGINE:
+  Steps a population one generation forward by counting each cell's living
+  neighbors directly from the population array, instead of copying them into
+  a new 3x3 neighborhood matrix first.
+
+  The engine slides a window of three column sums along each row. A column
+  sum is the number of living cells in one column of the three rows that
+  surround the current row. A cell's neighbor count is the sum of the three
+  column sums around it, minus the cell itself. Cells outside the population
+  are treated as dead. The cell's next state is looked up in the rule's
+  table by state and count, held in the bits of an int.
+
+  No memory is allocated while a generation is computed. The result is
+  written into a second population; GenerationBuffer swaps the two between
+  generations.
+*/
+
+public class CountingEngine {
+
+  /**
+  * Applies the Game of Life rules to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population after the Game of Life rules have
+  *              been applied to each cell in current.
+  */
+  public static void generate(boolean[][] current, boolean[][] next) {
+    generate(current, next, Rule.LIFE);
+  }
+
+  /**
+  * Applies a Life-like rule to each element in the current population matrix
+  * and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public static void generate(boolean[][] current, boolean[][] next, Rule rule) {
+    long[] counts = new long[3];
+    for (int row = 0; row < current.length; row++) {
+      boolean[] above = (row > 0) ? current[row - 1] : null;
+      boolean[] below = (row < current.length - 1) ? current[row + 1] : null;
+      step(above, current[row], below, next[row], 0, current[row].length, rule, counts);
+    }
+  }
+
+  /**
+  * Computes the next generation of the columns [from, to) of a single row.
+  *
+  * @param  above the row above, or null if row is the north edge
+  * @param  row the row being stepped
+  * @param  below the row below, or null if row is the south edge
+  * @param  out the array to receive the next generation of row
+  * @param  from the first column to compute
+  * @param  to one past the last column to compute
+  * @param  rule the rule to apply
+  * @param  counts the population, births and deaths, to which those of the
+  *                computed cells are added
+  * @return true if any computed cell differs from its value in row
+  */
+  static boolean step(boolean[] above, boolean[] row, boolean[] below, boolean[] out, 
+                      int from, int to, Rule rule, long[] counts) {
+    int cols = row.length;
+    if (from >= to)
+      return false;
+    int table = rule.countBits();
+    int population = 0;
+    int births = 0;
+    int deaths = 0;
+    // column sum west of the cell (dead outside the population)
+    int left = (from > 0) ? columnSum(above, row, below, from - 1) : 0;
+    int mid = columnSum(above, row, below, from);
+    for (int col = from; col < to; col++) {
+      int right = (col + 1 < cols) ? columnSum(above, row, below, col + 1) : 0;
+      boolean alive = row[col];
+      int self = alive ? 1 : 0;
+      int next = (table >>> (self * 9 + left + mid + right - self)) & 1;
+      out[col] = next != 0;
+      population += next;
+      births += next & ~self;
+      deaths += self & ~next;
+      left = mid;
+      mid = right;
+    }
+    counts[0] += population;
+    counts[1] += births;
+    counts[2] += deaths;
+    return (births | deaths) != 0;
+  }
+
+  /**
+  * Returns the number of living cells in column col of the three given rows
+  */
+  private static int columnSum(boolean[] above, boolean[] row, boolean[] below, int col) {
+    int sum = row[col] ? 1 : 0;
+    if (above != null && above[col])
+      sum++;
+    if (below != null && below[col])
+      sum++;
+    return sum;
+  }
+}
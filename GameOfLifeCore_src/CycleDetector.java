@@ -0,0 +1,204 @@
+/*
+  CYCLE DETECTOR:
+  Recognizes when a bounded population has stabilized: when it has become a
+  still life, or an oscillator that keeps returning to an earlier generation
+  after a fixed period. Most seeds settle long before the end of a run, so a
+  run can stop as soon as its outcome is known.
+
+  Every generation is identified by a 64-bit Zobrist hash, the XOR of a
+  random key per living cell. XOR undoes itself, so the hash of the next
+  generation is the hash of the last one XORed with the keys of the cells
+  that changed; it is never recomputed from scratch. The engines note which
+  rows changed during their own sweep (Engine.changedRows), and an
+  ActiveRegionEngine which tiles, so only those are compared, with
+  Arrays.mismatch. Without that, e.g. for a lambda engine, every row is
+  compared.
+
+  The hashes of the last few generations are kept in a ring, with a map from
+  hash to ring slot, so a repeat is found with one lookup and memory stays
+  bounded however long the run is. An oscillator with a period longer than
+  the history is not recognized.
+
+  A still life is recognized exactly, as a generation in which no cell
+  changed. An oscillator is recognized by its hash; two populations with the
+  same hash are possible, but at odds of about 1 in 2^64 per pair.
+*/
+
+import java.util.Arrays;
+
+public class CycleDetector {
+
+  private final long[] hashes;      // the ring of recent generation hashes
+  private final long[] generations; // the generation of each ring slot
+  private final LongIntHashMap slots; // hash to ring slot + 1
+  private int oldest;               // the ring slot written next
+  private int size;
+  private long hash;
+  private long stableFrom = -1;
+  private int period;
+
+  /**
+  * Starts watching a population. Its hash is computed once here and only
+  * updated from then on.
+  *
+  * @param  history the number of generations remembered, which is also the
+  *                 longest period recognized
+  * @param  population the starting population
+  * @param  generation the generation number of the population
+  */
+  public CycleDetector(int history, boolean[][] population, long generation) {
+    if (history < 1)
+      throw new IllegalArgumentException("history must be at least 1");
+    hashes = new long[history];
+    generations = new long[history];
+    slots = new LongIntHashMap(history);
+    for (int row = 0; row < population.length; row++) {
+      boolean[] cells = population[row];
+      for (int col = 0; col < cells.length; col++) {
+        if (cells[col])
+          hash ^= key(row, col);
+      }
+    }
+    remember(generation);
+  }
+
+  /**
+  * Updates the hash from the cells that changed in the last generation and
+  * checks whether the population has been seen before. Every cell of the
+  * two populations is compared.
+  *
+  * @param  previous the population before the last generation
+  * @param  current the population after it
+  * @param  generation the generation number of current
+  * @return true if current repeats an earlier generation, after which
+  *         stableFrom() and period() describe the cycle
+  */
+  public boolean update(boolean[][] previous, boolean[][] current, long generation) {
+    return update(previous, current, generation, null);
+  }
+
+  /**
+  * Updates the hash from the cells that changed in the last generation and
+  * checks whether the population has been seen before. Only the rows the
+  * engine reports as changed are compared, or for an ActiveRegionEngine
+  * the tiles.
+  *
+  * @param  previous the population before the last generation
+  * @param  current the population after it
+  * @param  generation the generation number of current
+  * @param  engine the engine that stepped previous into current, or null
+  * @return true if current repeats an earlier generation, after which
+  *         stableFrom() and period() describe the cycle
+  */
+  public boolean update(boolean[][] previous, boolean[][] current, long generation, Engine engine) {
+    boolean[] tiles = (engine instanceof ActiveRegionEngine)
+        ? ((ActiveRegionEngine) engine).changedTiles(previous, current)
+        : null;
+    boolean[] changedRows = (tiles == null && engine != null) ? engine.changedRows(previous, current) : null;
+    boolean changed = false;
+    if (tiles == null) {
+      for (int row = 0; row < current.length; row++) {
+        if (changedRows == null || changedRows[row])
+          changed |= toggle(row, previous[row], current[row], 0, current[row].length);
+      }
+    } else {
+      int tile = ActiveRegionEngine.TILE;
+      int rows = current.length;
+      int cols = (rows > 0) ? current[0].length : 0;
+      int tileCols = (cols + tile - 1) / tile;
+      for (int tr = 0; tr * tile < rows; tr++) {
+        for (int tc = 0; tc < tileCols; tc++) {
+          if (!tiles[tr * tileCols + tc])
+            continue;
+          int colFrom = tc * tile;
+          int colTo = Math.min(cols, colFrom + tile);
+          for (int row = tr * tile; row < Math.min(rows, (tr + 1) * tile); row++)
+            changed |= toggle(row, previous[row], current[row], colFrom, colTo);
+        }
+      }
+    }
+
+    if (!changed)
+      return found(generation - 1, 1);
+    int slot = slots.get(hash) - 1;
+    if (slot >= 0)
+      return found(generations[slot], (int) (generation - generations[slot]));
+    remember(generation);
+    return false;
+  }
+
+  /**
+  * Returns the first generation of the cycle: the generation a still life
+  * first appeared, or the first generation an oscillator repeats. -1 while
+  * no cycle has been found.
+  */
+  public long stableFrom() {
+    return stableFrom;
+  }
+
+  /**
+  * Returns the period of the cycle, 1 for a still life, or 0 while no cycle
+  * has been found
+  */
+  public int period() {
+    return period;
+  }
+
+  /**
+  * Returns the hash of the current generation
+  */
+  public long hash() {
+    return hash;
+  }
+
+  /**
+  * XORs the keys of the cells of a row in [from, to) that differ between
+  * before and after into the hash, and returns true if any did
+  */
+  private boolean toggle(int row, boolean[] before, boolean[] after, int from, int to) {
+    boolean changed = false;
+    int col = from;
+    while (col < to) {
+      int rest = Arrays.mismatch(before, col, to, after, col, to);
+      if (rest < 0)
+        break;
+      col += rest;
+      hash ^= key(row, col);
+      changed = true;
+      col++;
+    }
+    return changed;
+  }
+
+  private boolean found(long stableFrom, int period) {
+    this.stableFrom = stableFrom;
+    this.period = period;
+    return true;
+  }
+
+  /**
+  * Adds the current hash to the ring, forgetting the oldest one if it is full
+  */
+  private void remember(long generation) {
+    if (size == hashes.length)
+      slots.remove(hashes[oldest]);
+    else
+      size++;
+    hashes[oldest] = hash;
+    generations[oldest] = generation;
+    slots.add(hash, oldest + 1);
+    oldest = (oldest + 1 == hashes.length) ? 0 : oldest + 1;
+  }
+
+  /**
+  * Returns the random key of a cell: its coordinates run through the
+  * SplitMix64 finalizer, so no table of keys has to be stored
+  */
+  private static long key(int row, int col) {
+    long z = (((long) row << 32) | (col & 0xFFFFFFFFL)) + 1;
+    z *= 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,47 @@
+/*
+  ENGINE:
+  Computes the next generation of a bounded population held in a
+  two-dimensional boolean array. The front-ends step their boards through
+  this interface only, so a faster engine plugs in without any change to
+  the code that prints or draws the board.
+
+  Implementations: HaloEngine (one thread), ParallelEngine (a thread pool)
+  and ActiveRegionEngine (only the tiles around the last changes). The
+  static CountingEngine can stand in as a lambda, e.g.
+  (current, next) -> CountingEngine.generate(current, next, rule).
+*/
+
+public interface Engine {
+
+  /**
+  * Applies the engine's rule to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array of the same size to be
+  *              initialized with the next generation of the population
+  */
+  void generate(boolean[][] current, boolean[][] next);
+
+  /**
+  * Returns the population, births and deaths of the last generation, or
+  * null if the engine does not count them. The engine overwrites the same
+  * GenerationStats every generation.
+  */
+  default GenerationStats stats() {
+    return null;
+  }
+
+  /**
+  * Returns, for each row, whether a cell of the row changed in the
+  * generation that stepped current into next, or null if the engine did
+  * not record it, or its last generation stepped other populations. The
+  * array is the engine's own and is overwritten by the next generation.
+  * CycleDetector uses it to hash only the rows that changed.
+  */
+  default boolean[] changedRows(boolean[][] current, boolean[][] next) {
+    return null;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+  GENERATION BUFFER:
+  Holds two populations of the same size: the current generation (front) and
+  the one being computed (back). After an engine has written the next
+  generation into the back population, the two are swapped by reference, so
+  the new generation never has to be copied back cell by cell.
+
+  The type parameter is the population representation, e.g. boolean[][],
+  PackedGrid or OffHeapGrid.
+*/
+
+import java.util.function.BiConsumer;
+
+public class GenerationBuffer<T> {
+
+  private T front;
+  private T back;
+  private long generation;
+
+  /**
+  * @param  front the starting population
+  * @param  back an identically sized population used as scratch space
+  */
+  public GenerationBuffer(T front, T back) {
+    this.front = front;
+    this.back = back;
+  }
+
+  /**
+  * Creates a buffer over two dead boolean[][] populations
+  */
+  public static GenerationBuffer<boolean[][]> ofMatrix(int rows, int cols) {
+    return new GenerationBuffer<>(new boolean[rows][cols], new boolean[rows][cols]);
+  }
+
+  /**
+  * Creates a buffer over two dead packed populations
+  */
+  public static GenerationBuffer<PackedGrid> ofPacked(int rows, int cols) {
+    return new GenerationBuffer<>(new PackedGrid(rows, cols), new PackedGrid(rows, cols));
+  }
+
+  /**
+  * Creates a buffer over two dead off-heap populations
+  */
+  public static GenerationBuffer<OffHeapGrid> ofOffHeap(long rows, long cols) {
+    return new GenerationBuffer<>(new OffHeapGrid(rows, cols), new OffHeapGrid(rows, cols));
+  }
+
+  /**
+  * Returns the current generation
+  */
+  public T current() {
+    return front;
+  }
+
+  /**
+  * Returns the population the next generation should be written into
+  */
+  public T next() {
+    return back;
+  }
+
+  /**
+  * Makes the next population the current one, and the current one scratch
+  */
+  public void swap() {
+    T t = front;
+    front = back;
+    back = t;
+    generation++;
+  }
+
+  /**
+  * Computes the next generation with the given step function and swaps it in
+  *
+  * @param  step writes the generation after its first argument into its
+  *              second argument, e.g. CountingEngine::generate
+  */
+  public void advance(BiConsumer<T, T> step) {
+    step.accept(front, back);
+    swap();
+  }
+
+  /**
+  * Returns the number of generations swapped in since the buffer was created
+  * or last reset, plus the generation it was set to
+  */
+  public long generation() {
+    return generation;
+  }
+
+  public void resetGeneration() {
+    generation = 0;
+  }
+
+  /**
+  * Sets the generation number of the current population, e.g. when it was
+  * restored from a checkpoint
+  */
+  public void setGeneration(long generation) {
+    this.generation = generation;
+  }
+}
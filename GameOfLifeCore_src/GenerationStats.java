@@ -0,0 +1,61 @@
+/*
+  GENERATION STATS:
+  What happened in the last generation an engine computed: how many cells
+  are alive afterwards, how many were born and how many died. Engines count
+  these in the sweep that computes the generation anyway, a few additions
+  per cell, so reading them costs no extra pass over the board.
+
+  An engine owns one GenerationStats and overwrites it every generation;
+  copy the values out to keep them.
+*/
+
+public final class GenerationStats {
+
+  private long population;
+  private long births;
+  private long deaths;
+
+  /**
+  * Returns the number of living cells after the generation
+  */
+  public long population() {
+    return population;
+  }
+
+  /**
+  * Returns the number of dead cells that came to life
+  */
+  public long births() {
+    return births;
+  }
+
+  /**
+  * Returns the number of living cells that died
+  */
+  public long deaths() {
+    return deaths;
+  }
+
+  /**
+  * Replaces all three counts, e.g. to describe a starting population
+  */
+  public void set(long population, long births, long deaths) {
+    this.population = population;
+    this.births = births;
+    this.deaths = deaths;
+  }
+
+  void clear() {
+    set(0, 0, 0);
+  }
+
+  /**
+  * Adds the counts of part of the board. Parts stepped on different threads
+  * may add their counts concurrently.
+  */
+  synchronized void add(long population, long births, long deaths) {
+    this.population += population;
+    this.births += births;
+    this.deaths += deaths;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+  HALO ENGINE:
+  Steps a population with either a dead border or a toroidal (wrap-around)
+  topology, without testing for the edge of the board anywhere in the inner
+  loop.
+
+  Rows are counted from padded copies, one cell wider on each side than the
+  board. The extra cells form a halo that is filled once per row, as the row
+  is copied: with the cells of the opposite edge on a torus, or dead cells
+  otherwise. The rows above the first and below the last row are halo rows
+  filled the same way. The inner loop then reads every neighbor directly and,
+  with cells stored as 0 or 1 bytes, counts them with plain additions.
+
+  Only three padded rows exist at any time; they are rotated as the engine
+  moves down the board, so the copies stay in the cache.
+
+  TOPOLOGIES:
+  plane  cells outside the board are dead (the same as CountingEngine)
+  torus  the west edge touches the east edge and the north edge the south
+         edge, so patterns leaving one side re-enter at the other
+
+  Any Life-like rule can be used. A cell's next state is a single lookup in
+  the rule's 18-entry table by state and count, packed into the bits of an
+  int so that the lookup is a shift instead of an array access.
+
+  With counting turned on, the engine also counts the living cells, births
+  and deaths as it steps each row, which stats() reports for the last
+  generation, and records which rows had any birth or death for
+  changedRows(). The counts make the inner loop about a third slower, so it
+  is off unless asked for.
+*/
+
+public class HaloEngine implements Engine {
+
+  private final boolean torus;
+  private final Rule rule;
+  private final GenerationStats stats = new GenerationStats();
+  private boolean counting;
+  private byte[][] halo = new byte[3][0];
+  private boolean[] changed = new boolean[0]; // rows changed by the last generation
+  private boolean[][] lastCurrent; // the population read by the last counted generation
+  private boolean[][] lastNext;    // the population written by it
+
+  /**
+  * Creates an engine for the given topology and rule. The engine keeps
+  * scratch rows between generations, so use one engine per thread.
+  *
+  * @param  torus true for a toroidal board, false for a dead border
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public HaloEngine(boolean torus, Rule rule) {
+    this.torus = torus;
+    this.rule = rule;
+  }
+
+  /**
+  * Creates a Game of Life engine for the given topology
+  *
+  * @param  torus true for a toroidal board, false for a dead border
+  */
+  public HaloEngine(boolean torus) {
+    this(torus, Rule.LIFE);
+  }
+
+  public boolean isTorus() {
+    return torus;
+  }
+
+  /**
+  * Turns counting the population, births and deaths on or off
+  */
+  public void setCounting(boolean counting) {
+    this.counting = counting;
+  }
+
+  /**
+  * Returns the population, births and deaths of the last generation, or
+  * null while counting is turned off
+  */
+  public GenerationStats stats() {
+    return counting ? stats : null;
+  }
+
+  /**
+  * Returns which rows changed in the generation that stepped current into
+  * next, or null unless that generation was counted
+  */
+  public boolean[] changedRows(boolean[][] current, boolean[][] next) {
+    return (current == lastCurrent && next == lastNext) ? changed : null;
+  }
+
+  /**
+  * Applies the engine's rule to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population
+  */
+  public void generate(boolean[][] current, boolean[][] next) {
+    int cols = (current.length > 0) ? current[0].length : 0;
+    if (halo[0].length != cols + 2)
+      halo = new byte[3][cols + 2];
+    if (counting) {
+      stats.clear();
+      if (changed.length != current.length)
+        changed = new boolean[current.length];
+    }
+    step(current, next, 0, current.length, torus, rule, halo, counting ? stats : null, changed);
+    lastCurrent = counting ? current : null;
+    lastNext = counting ? next : null;
+  }
+
+  /**
+  * Computes the next generation of rows [fromRow, toRow) of current into the
+  * same rows of next. Rows outside the range are read but never written.
+  *
+  * @param  torus true for a toroidal board, false for a dead border
+  * @param  rule the rule to apply
+  * @param  halo three scratch rows of at least cols + 2 cells
+  * @param  stats receives the population, births and deaths of the rows,
+  *               or null to count nothing
+  * @param  changed receives for each row whether it had a birth or death,
+  *                 while stats is not null
+  */
+  static void step(boolean[][] current, boolean[][] next, int fromRow, int toRow,
+                   boolean torus, Rule rule, byte[][] halo, GenerationStats stats, boolean[] changed) {
+    if (fromRow >= toRow || current[0].length == 0)
+      return;
+    byte[] above = halo[0];
+    byte[] row = halo[1];
+    byte[] below = halo[2];
+    int table = rule.countBits();
+    pad(current, fromRow - 1, above, torus);
+    pad(current, fromRow, row, torus);
+    long[] counts = (stats != null) ? new long[3] : null; // population, births and deaths
+    for (int r = fromRow; r < toRow; r++) {
+      pad(current, r + 1, below, torus);
+      if (counts == null)
+        stepRow(above, row, below, next[r], table);
+      else
+        changed[r] = stepRow(above, row, below, next[r], table, counts);
+      byte[] free = above;
+      above = row;
+      row = below;
+      below = free;
+    }
+    if (stats != null)
+      stats.add(counts[0], counts[1], counts[2]);
+  }
+
+  /**
+  * Copies row r of a population into a padded row and fills its halo. A row
+  * of -1 or current.length is the row across the edge: the row on the
+  * opposite edge of a torus, or a dead row.
+  */
+  static void pad(boolean[][] current, int r, byte[] padded, boolean torus) {
+    int rows = current.length;
+    int cols = current[0].length;
+    if (r < 0 || r >= rows) {
+      if (!torus) {
+        for (int c = 0; c < cols + 2; c++)
+          padded[c] = 0;
+        return;
+      }
+      r = (r < 0) ? rows - 1 : 0;
+    }
+    boolean[] cells = current[r];
+    for (int c = 0; c < cols; c++)
+      padded[c + 1] = (byte) (cells[c] ? 1 : 0);
+    padded[0] = torus ? padded[cols] : 0;
+    padded[cols + 1] = torus ? padded[1] : 0;
+  }
+
+  /**
+  * Computes the next generation of a padded row into out
+  *
+  * @param  table the rule's table, bit 9 * state + count
+  */
+  static void stepRow(byte[] above, byte[] row, byte[] below, boolean[] out, int table) {
+    int cols = out.length;
+    int left = above[0] + row[0] + below[0];
+    int mid = above[1] + row[1] + below[1];
+    for (int c = 1; c <= cols; c++) {
+      int right = above[c + 1] + row[c + 1] + below[c + 1];
+      int alive = row[c];
+      // bit 9 * alive + count, where count = sum - alive
+      out[c - 1] = ((table >>> (alive * 8 + left + mid + right)) & 1) != 0;
+      left = mid;
+      mid = right;
+    }
+  }
+
+  /**
+  * Computes the next generation of a padded row into out and counts it
+  *
+  * @param  table the rule's table, bit 9 * state + count
+  * @param  counts the population, births and deaths, to which the row's
+  *                are added
+  * @return true if any cell of the row was born or died
+  */
+  static boolean stepRow(byte[] above, byte[] row, byte[] below, boolean[] out, int table,
+                              long[] counts) {
+    int cols = out.length;
+    int left = above[0] + row[0] + below[0];
+    int mid = above[1] + row[1] + below[1];
+    int population = 0;
+    int births = 0;
+    int deaths = 0;
+    for (int c = 1; c <= cols; c++) {
+      int right = above[c + 1] + row[c + 1] + below[c + 1];
+      int alive = row[c];
+      // bit 9 * alive + count, where count = sum - alive
+      int next = (table >>> (alive * 8 + left + mid + right)) & 1;
+      out[c - 1] = next != 0;
+      population += next;
+      births += next & ~alive;
+      deaths += alive & ~next;
+      left = mid;
+      mid = right;
+    }
+    counts[0] += population;
+    counts[1] += births;
+    counts[2] += deaths;
+    return (births | deaths) != 0;
+  }
+}
@@ -0,0 +1,481 @@
+/*
+  HASHLIFE:
+  Bill Gosper's algorithm for running a population very far into the future.
+
+  QUADTREE:
+  The universe is a square of 2^level cells stored as a tree of nodes. A node
+  of level k is split into four nodes of level k-1 (nw, ne, sw, se), down to
+  the single cells at level 0. Nodes are canonical: there is only ever one
+  node for a given arrangement of cells, so repeated parts of a pattern (and
+  all empty space) are stored once.
+
+  RESULTS:
+  For a node of level k, the center node of level k-1 after 2^(k-2)
+  generations depends on nothing outside the node. Since nodes are
+  canonical, that result is computed once per node and remembered. A result
+  for a shorter jump of 2^j generations (j < k-2) is remembered too, one per
+  node, for the jump size used most recently.
+
+  RULES:
+  Any Life-like rule without B0 can be run: the rule only enters where the
+  4x4 squares at the bottom of the tree are stepped, by looking up each 3x3
+  neighborhood in the rule's 512-entry table. Results are remembered per
+  HashLife, so every HashLife runs a single rule.
+
+  NODE CACHE:
+  Canonical nodes live in a hash table. When the table grows past maxNodes
+  between jumps, every node that is no longer part of the universe is
+  dropped along with all remembered results, bounding the memory used.
+
+  LIMITS:
+  Coordinates are longs, so the root is at most of level MAX_LEVEL, 2^61
+  cells on a side. A jump of 2^j generations needs a root of level j + 4,
+  which limits a single advance to MAX_GENERATIONS generations; a pattern
+  that grows past the edge of the largest universe ends the run with an
+  IllegalStateException.
+*/
+
+public class HashLife implements Universe {
+
+  static final int DEFAULT_MAX_NODES = 1 << 21;
+  static final int MAX_LEVEL = 61; // the largest root, 2^61 cells on a side
+  public static final long MAX_GENERATIONS = (1L << (MAX_LEVEL - 3)) - 1;
+
+  private final int maxNodes;
+  private Node[] table = new Node[1 << 16];
+  private int size;
+  private long nextId = 2; // ids 0 and 1 are the dead and living cell
+  private int epoch;       // marks the nodes visited by the current collect()
+  private final Node[] empty = new Node[MAX_LEVEL];
+  private final Node alive;
+  private final Rule rule;
+
+  private Node root;
+  private long originRow; // row of the universe at the north edge of root
+  private long originCol; // column of the universe at the west edge of root
+  private long generation;
+
+  public HashLife() {
+    this(DEFAULT_MAX_NODES, Rule.LIFE);
+  }
+
+  /**
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  * @throws IllegalArgumentException if the rule has B0
+  */
+  public HashLife(Rule rule) {
+    this(DEFAULT_MAX_NODES, rule);
+  }
+
+  /**
+  * @param  maxNodes the number of canonical nodes kept before unused nodes
+  *                  and remembered results are dropped
+  */
+  public HashLife(int maxNodes) {
+    this(maxNodes, Rule.LIFE);
+  }
+
+  /**
+  * @param  maxNodes the number of canonical nodes kept before unused nodes
+  *                  and remembered results are dropped
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  * @throws IllegalArgumentException if the rule has B0
+  */
+  public HashLife(int maxNodes, Rule rule) {
+    if (rule.birthOnZero())
+      throw new IllegalArgumentException("an unbounded universe cannot run a B0 rule: " + rule);
+    this.rule = rule;
+    this.maxNodes = maxNodes;
+    empty[0] = new Node(0, 0);
+    alive = new Node(1, 1);
+    for (int k = 1; k < empty.length; k++)
+      empty[k] = join(empty[k - 1], empty[k - 1], empty[k - 1], empty[k - 1]);
+    root = empty[3];
+    originRow = -4;
+    originCol = -4;
+  }
+
+  /**
+  * Creates a universe holding the living cells of a two-dimensional boolean
+  * array, with element [0][0] placed at (rowOffset, colOffset)
+  */
+  public static HashLife fromMatrix(boolean[][] population, long rowOffset, long colOffset) {
+    return fromMatrix(population, rowOffset, colOffset, Rule.LIFE);
+  }
+
+  /**
+  * Creates a universe for the given rule holding the living cells of a
+  * two-dimensional boolean array, with element [0][0] placed at
+  * (rowOffset, colOffset)
+  */
+  public static HashLife fromMatrix(boolean[][] population, long rowOffset, long colOffset, Rule rule) {
+    HashLife life = new HashLife(rule);
+    for (int i = 0; i < population.length; i++) {
+      for (int j = 0; j < population[i].length; j++) {
+        if (population[i][j])
+          life.set(rowOffset + i, colOffset + j);
+      }
+    }
+    return life;
+  }
+
+  /**
+  * Brings the cell at (row, col) to life
+  */
+  public void set(long row, long col) {
+    while (!inside(row, col))
+      expand();
+    root = set(root, row - originRow, col - originCol);
+  }
+
+  public boolean get(long row, long col) {
+    if (!inside(row, col))
+      return false;
+    Node n = root;
+    long r = row - originRow;
+    long c = col - originCol;
+    while (n.level > 0) {
+      long half = 1L << (n.level - 1);
+      boolean south = r >= half;
+      boolean east = c >= half;
+      n = south ? (east ? n.se : n.sw) : (east ? n.ne : n.nw);
+      if (south)
+        r -= half;
+      if (east)
+        c -= half;
+    }
+    return n.population != 0;
+  }
+
+  /**
+  * Advances the universe by one generation
+  */
+  public void step() {
+    advance(1);
+  }
+
+  /**
+  * Advances the universe by the given number of generations. The jump is
+  * made in at most 58 steps of a power of two generations each.
+  *
+  * @param  generations the number of generations, 0 to MAX_GENERATIONS
+  * @throws IllegalArgumentException if generations is out of that range
+  * @throws IllegalStateException if the pattern outgrows the largest
+  *         universe, 2^MAX_LEVEL cells on a side
+  */
+  public void advance(long generations) {
+    if (generations < 0 || generations > MAX_GENERATIONS)
+      throw new IllegalArgumentException("generations must be 0 to " + MAX_GENERATIONS 
+          + ", not " + generations);
+    for (int j = MAX_LEVEL - 4; j >= 0; j--) {
+      if ((generations & (1L << j)) == 0)
+        continue;
+      // make room for the pattern to grow by 2^j cells in every direction
+      while (root.level < j + 3 || !centered(root))
+        expand();
+      expand();
+      long quarter = 1L << (root.level - 2);
+      root = successor(root, j);
+      originRow += quarter;
+      originCol += quarter;
+      generation += 1L << j;
+      if (size > maxNodes)
+        collect();
+    }
+  }
+
+  /**
+  * Returns the number of living cells
+  */
+  public long population() {
+    return root.population;
+  }
+
+  public long generation() {
+    return generation;
+  }
+
+  /**
+  * Returns the number of canonical nodes currently cached
+  */
+  public int nodeCount() {
+    return size;
+  }
+
+  /**
+  * Copies a rectangular window of the universe into a new two-dimensional
+  * boolean array, e.g. for GameOfLifeCLI.printMatrix
+  *
+  * @param  top the row of the universe that becomes row 0
+  * @param  left the column of the universe that becomes column 0
+  */
+  public boolean[][] toMatrix(long top, long left, int rows, int cols) {
+    boolean[][] m = new boolean[rows][cols];
+    fill(m, root, originRow - top, originCol - left);
+    return m;
+  }
+
+  /**
+  * Sets the elements of m covered by the living cells of node n, whose
+  * north-west cell is at m[row][col]
+  */
+  private static void fill(boolean[][] m, Node n, long row, long col) {
+    long side = 1L << n.level;
+    if (n.population == 0 || row >= m.length || col >= m[0].length
+        || row + side <= 0 || col + side <= 0)
+      return;
+    if (n.level == 0) {
+      m[(int) row][(int) col] = true;
+      return;
+    }
+    long half = side >>> 1;
+    fill(m, n.nw, row, col);
+    fill(m, n.ne, row, col + half);
+    fill(m, n.sw, row + half, col);
+    fill(m, n.se, row + half, col + half);
+  }
+
+  private boolean inside(long row, long col) {
+    long side = 1L << root.level;
+    return row >= originRow && row < originRow + side
+        && col >= originCol && col < originCol + side;
+  }
+
+  /**
+  * Doubles the size of the universe, keeping the current root in the center
+  */
+  private void expand() {
+    if (root.level >= MAX_LEVEL)
+      throw new IllegalStateException("the pattern outgrew the largest universe, 2^" + MAX_LEVEL
+          + " cells on a side");
+    Node e = empty[root.level - 1];
+    long half = 1L << (root.level - 1);
+    root = join(join(e, e, e, root.nw), join(e, e, root.ne, e),
+                join(e, root.sw, e, e), join(root.se, e, e, e));
+    originRow -= half;
+    originCol -= half;
+  }
+
+  /**
+  * Returns true if every living cell of n lies in its center half
+  */
+  private static boolean centered(Node n) {
+    return n.nw.population == n.nw.se.population
+        && n.ne.population == n.ne.sw.population
+        && n.sw.population == n.sw.ne.population
+        && n.se.population == n.se.nw.population;
+  }
+
+  private Node set(Node n, long row, long col) {
+    if (n.level == 0)
+      return alive;
+    long half = 1L << (n.level - 1);
+    if (row < half) {
+      if (col < half)
+        return join(set(n.nw, row, col), n.ne, n.sw, n.se);
+      return join(n.nw, set(n.ne, row, col - half), n.sw, n.se);
+    }
+    if (col < half)
+      return join(n.nw, n.ne, set(n.sw, row - half, col), n.se);
+    return join(n.nw, n.ne, n.sw, set(n.se, row - half, col - half));
+  }
+
+  /**
+  * Returns the center of node m after 2^j generations, j <= m.level - 2
+  */
+  private Node successor(Node m, int j) {
+    if (m.population == 0)
+      return empty[m.level - 1];
+    int full = m.level - 2;
+    if (j == full && m.result != null)
+      return m.result;
+    if (j < full && m.partial != null && m.partialStep == j)
+      return m.partial;
+
+    Node r;
+    if (m.level == 2) {
+      r = life4x4(m);
+    } else {
+      Node n00 = m.nw;
+      Node n01 = join(m.nw.ne, m.ne.nw, m.nw.se, m.ne.sw);
+      Node n02 = m.ne;
+      Node n10 = join(m.nw.sw, m.nw.se, m.sw.nw, m.sw.ne);
+      Node n11 = join(m.nw.se, m.ne.sw, m.sw.ne, m.se.nw);
+      Node n12 = join(m.ne.sw, m.ne.se, m.se.nw, m.se.ne);
+      Node n20 = m.sw;
+      Node n21 = join(m.sw.ne, m.se.nw, m.sw.se, m.se.sw);
+      Node n22 = m.se;
+
+      // the first half of the jump (or all of it, for a short jump)
+      int first = (j == full) ? j - 1 : j;
+      Node c00 = successor(n00, first);
+      Node c01 = successor(n01, first);
+      Node c02 = successor(n02, first);
+      Node c10 = successor(n10, first);
+      Node c11 = successor(n11, first);
+      Node c12 = successor(n12, first);
+      Node c20 = successor(n20, first);
+      Node c21 = successor(n21, first);
+      Node c22 = successor(n22, first);
+
+      if (j == full) {
+        r = join(successor(join(c00, c01, c10, c11), first),
+                 successor(join(c01, c02, c11, c12), first),
+                 successor(join(c10, c11, c20, c21), first),
+                 successor(join(c11, c12, c21, c22), first));
+      } else {
+        r = join(join(c00.se, c01.sw, c10.ne, c11.nw),
+                 join(c01.se, c02.sw, c11.ne, c12.nw),
+                 join(c10.se, c11.sw, c20.ne, c21.nw),
+                 join(c11.se, c12.sw, c21.ne, c22.nw));
+      }
+    }
+
+    if (j == full) {
+      m.result = r;
+    } else {
+      m.partial = r;
+      m.partialStep = j;
+    }
+    return r;
+  }
+
+  /**
+  * Returns the center 2x2 cells of a 4x4 node after one generation
+  */
+  private Node life4x4(Node m) {
+    int bits = 0; // bit (row * 4 + col) of the 4x4 square
+    Node[] quads = {m.nw, m.ne, m.sw, m.se};
+    for (int q = 0; q < 4; q++) {
+      Node quad = quads[q];
+      int row = (q >> 1) * 2;
+      int col = (q & 1) * 2;
+      bits |= (int) quad.nw.population << (row * 4 + col);
+      bits |= (int) quad.ne.population << (row * 4 + col + 1);
+      bits |= (int) quad.sw.population << ((row + 1) * 4 + col);
+      bits |= (int) quad.se.population << ((row + 1) * 4 + col + 1);
+    }
+    return join(cell(bits, 1, 1), cell(bits, 1, 2), cell(bits, 2, 1), cell(bits, 2, 2));
+  }
+
+  /**
+  * Applies the rule to the cell at (row, col) of a 4x4 square
+  */
+  private Node cell(int bits, int row, int col) {
+    // the three rows of the 3x3 neighborhood, three bits each
+    int shift = (row - 1) * 4 + col - 1;
+    int neighborhood = ((bits >>> shift) & 7)
+                     | (((bits >>> (shift + 4)) & 7) << 3)
+                     | (((bits >>> (shift + 8)) & 7) << 6);
+    return rule.next(neighborhood) ? alive : empty[0];
+  }
+
+  /**
+  * Returns the canonical node with the given quadrants
+  */
+  private Node join(Node nw, Node ne, Node sw, Node se) {
+    int h = hash(nw, ne, sw, se);
+    int i = h & (table.length - 1);
+    for (Node n = table[i]; n != null; n = n.next) {
+      if (n.nw == nw && n.ne == ne && n.sw == sw && n.se == se)
+        return n;
+    }
+    Node n = new Node(nw, ne, sw, se, nextId++, h);
+    insert(n);
+    return n;
+  }
+
+  private void insert(Node n) {
+    int i = n.hash & (table.length - 1);
+    n.next = table[i];
+    table[i] = n;
+    if (++size > table.length)
+      rehash(table.length << 1);
+  }
+
+  private void rehash(int capacity) {
+    Node[] old = table;
+    table = new Node[capacity];
+    for (Node head : old) {
+      for (Node n = head; n != null; ) {
+        Node following = n.next;
+        int i = n.hash & (capacity - 1);
+        n.next = table[i];
+        table[i] = n;
+        n = following;
+      }
+    }
+  }
+
+  private static int hash(Node nw, Node ne, Node sw, Node se) {
+    long h = nw.id;
+    h = h * 0x9e3779b97f4a7c15L + ne.id;
+    h = h * 0x9e3779b97f4a7c15L + sw.id;
+    h = h * 0x9e3779b97f4a7c15L + se.id;
+    return LongHashSet.hash(h);
+  }
+
+  /**
+  * Drops every node that is not part of the current universe, and every
+  * remembered result
+  */
+  private void collect() {
+    table = new Node[table.length];
+    size = 0;
+    epoch++;
+    for (int k = 1; k < empty.length; k++)
+      keep(empty[k]);
+    keep(root);
+  }
+
+  private void keep(Node n) {
+    if (n.level == 0 || n.mark == epoch)
+      return;
+    n.mark = epoch;
+    keep(n.nw);
+    keep(n.ne);
+    keep(n.sw);
+    keep(n.se);
+    n.result = null;
+    n.partial = null;
+    insert(n);
+  }
+
+  static final class Node {
+    final Node nw;
+    final Node ne;
+    final Node sw;
+    final Node se;
+    final int level;
+    final long population;
+    final long id;
+    final int hash;
+    Node next;       // next node in the same bucket of the canonical table
+    Node result;     // center after 2^(level-2) generations
+    Node partial;    // center after 2^partialStep generations
+    int partialStep;
+    int mark;        // epoch of the last collect() that kept this node
+
+    /**
+    * Creates a single cell
+    */
+    Node(long population, long id) {
+      this.nw = this.ne = this.sw = this.se = null;
+      this.level = 0;
+      this.population = population;
+      this.id = id;
+      this.hash = 0;
+    }
+
+    Node(Node nw, Node ne, Node sw, Node se, long id, int hash) {
+      this.nw = nw;
+      this.ne = ne;
+      this.sw = sw;
+      this.se = se;
+      this.level = nw.level + 1;
+      this.population = nw.population + ne.population + sw.population + se.population;
+      this.id = id;
+      this.hash = hash;
+    }
+  }
+}
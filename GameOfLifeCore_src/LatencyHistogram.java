@@ -0,0 +1,107 @@
+/*
+  LATENCY HISTOGRAM:
+  Records durations, e.g. the time each generation took, and reports their
+  percentiles. As in HdrHistogram, values are counted in log-linear buckets:
+  every power of two is split into HALF equal buckets, so each value is kept
+  to within 1/HALF (about 1.6%) of its true size, from nanoseconds to hours,
+  in one fixed array of counts. Recording is a few shifts and an increment
+  and never allocates, so it can run on every generation.
+
+  BUCKETS:
+  values 0 to 2 * HALF - 1     one bucket per value
+  values 2^e to 2^(e + 1) - 1  HALF buckets, each 2^(e - SUB_BITS + 1) wide
+*/
+
+import java.util.Arrays;
+
+public class LatencyHistogram {
+
+  private static final int SUB_BITS = 7;
+  private static final int HALF = 1 << (SUB_BITS - 1);
+
+  private final long[] counts = new long[index(Long.MAX_VALUE) + 1];
+  private long count;
+  private long sum;
+  private long min = Long.MAX_VALUE;
+  private long max;
+
+  /**
+  * Records one duration
+  *
+  * @param  nanos the duration in nanoseconds; negative values count as 0
+  */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts[index(value)]++;
+    count++;
+    sum += value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  /**
+  * Returns the number of durations recorded
+  */
+  public long count() {
+    return count;
+  }
+
+  public long min() {
+    return (count == 0) ? 0 : min;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public double mean() {
+    return (count == 0) ? 0 : (double) sum / count;
+  }
+
+  /**
+  * Returns the duration that the given percentage of the recorded durations
+  * do not exceed, to within the precision of its bucket
+  *
+  * @param  percent the percentile, from 0 to 100
+  */
+  public long percentile(double percent) {
+    if (count == 0)
+      return 0;
+    long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank)
+        return Math.min(highest(i), max);
+    }
+    return max;
+  }
+
+  /**
+  * Forgets every recorded duration
+  */
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    min = Long.MAX_VALUE;
+    max = 0;
+  }
+
+  /**
+  * Returns the bucket of a non-negative value
+  */
+  private static int index(long value) {
+    int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+    return shift * HALF + (int) (value >>> shift);
+  }
+
+  /**
+  * Returns the largest value that falls into bucket i
+  */
+  private static long highest(int i) {
+    int shift = Math.max(0, i / HALF - 1);
+    long lowest = (long) (i - shift * HALF) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+  LONG HASH SET:
+  A set of long keys stored in a single open-addressing table (linear
+  probing), so no key is ever boxed into a Long object.
+
+  Long.MIN_VALUE marks an empty slot, so that key is never stored in the
+  table; a separate flag records whether it is in the set.
+*/
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+public class LongHashSet {
+
+  static final long EMPTY = Long.MIN_VALUE;
+
+  private long[] keys;
+  private boolean hasEmptyKey; // whether EMPTY itself is in the set
+  private int size;
+  private int mask;
+  private int resizeAt;
+
+  public LongHashSet() {
+    this(16);
+  }
+
+  /**
+  * @param  expected the number of keys the set should hold without growing
+  */
+  public LongHashSet(int expected) {
+    allocate(tableSize(expected));
+  }
+
+  /**
+  * Adds a key to the set
+  *
+  * @return true if the key was not already in the set
+  */
+  public boolean add(long key) {
+    if (key == EMPTY) {
+      if (hasEmptyKey)
+        return false;
+      hasEmptyKey = true;
+      size++;
+      return true;
+    }
+    int i = slot(key);
+    while (keys[i] != EMPTY) {
+      if (keys[i] == key)
+        return false;
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    if (++size >= resizeAt)
+      grow();
+    return true;
+  }
+
+  public boolean contains(long key) {
+    if (key == EMPTY)
+      return hasEmptyKey;
+    int i = slot(key);
+    while (keys[i] != EMPTY) {
+      if (keys[i] == key)
+        return true;
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+  * Removes every key. The table is kept, so refilling it with about as many
+  * keys does not allocate, unless it is more than four times the size the
+  * keys need: then it shrinks to fit them, so that clearing costs time in
+  * proportion to the keys, not to the most the set ever held.
+  */
+  public void clear() {
+    int fit = tableSize(size);
+    if (keys.length > 4 * fit)
+      allocate(fit);
+    else
+      Arrays.fill(keys, EMPTY);
+    hasEmptyKey = false;
+    size = 0;
+  }
+
+  /**
+  * Passes every key in the set to action, in no particular order
+  */
+  public void forEach(LongConsumer action) {
+    long[] k = keys;
+    for (int i = 0; i < k.length; i++) {
+      if (k[i] != EMPTY)
+        action.accept(k[i]);
+    }
+    if (hasEmptyKey)
+      action.accept(EMPTY);
+  }
+
+  private int slot(long key) {
+    return hash(key) & mask;
+  }
+
+  /**
+  * Spreads the bits of a key over the whole int range (the murmur3
+  * finalizer), since packed cell coordinates differ mostly in a few bits
+  */
+  static int hash(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  /**
+  * Returns the smallest power of two table that keeps expected keys under
+  * a load factor of one half
+  */
+  static int tableSize(int expected) {
+    int n = 16;
+    while (n < 2L * expected)
+      n <<= 1;
+    return n;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+    resizeAt = capacity >>> 1;
+  }
+
+  private void grow() {
+    long[] old = keys;
+    allocate(old.length << 1);
+    for (long key : old) {
+      if (key == EMPTY)
+        continue;
+      int i = slot(key);
+      while (keys[i] != EMPTY)
+        i = (i + 1) & mask;
+      keys[i] = key;
+    }
+  }
+}
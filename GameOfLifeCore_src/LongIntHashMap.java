@@ -0,0 +1,164 @@
+/*
+  LONG INT HASH MAP:
+  A map from long keys to int values stored in two parallel open-addressing
+  arrays (linear probing), so neither keys nor values are ever boxed.
+
+  Long.MIN_VALUE marks an empty slot, so the value of that key is kept
+  outside the table, in emptyKeyValue.
+*/
+
+import java.util.Arrays;
+
+public class LongIntHashMap {
+
+  private static final long EMPTY = LongHashSet.EMPTY;
+
+  private long[] keys;
+  private int[] values;
+  private boolean hasEmptyKey; // whether EMPTY itself is a key
+  private int emptyKeyValue;
+  private int size;
+  private int mask;
+  private int resizeAt;
+
+  public LongIntHashMap() {
+    this(16);
+  }
+
+  /**
+  * @param  expected the number of keys the map should hold without growing
+  */
+  public LongIntHashMap(int expected) {
+    allocate(LongHashSet.tableSize(expected));
+  }
+
+  /**
+  * Adds delta to the value of key, treating a missing key as zero
+  */
+  public void add(long key, int delta) {
+    if (key == EMPTY) {
+      if (!hasEmptyKey) {
+        hasEmptyKey = true;
+        emptyKeyValue = 0;
+        size++;
+      }
+      emptyKeyValue += delta;
+      return;
+    }
+    int i = LongHashSet.hash(key) & mask;
+    while (keys[i] != EMPTY) {
+      if (keys[i] == key) {
+        values[i] += delta;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    keys[i] = key;
+    values[i] = delta;
+    if (++size >= resizeAt)
+      grow();
+  }
+
+  /**
+  * Returns the value of key, or zero if the key is not in the map
+  */
+  public int get(long key) {
+    if (key == EMPTY)
+      return hasEmptyKey ? emptyKeyValue : 0;
+    int i = LongHashSet.hash(key) & mask;
+    while (keys[i] != EMPTY) {
+      if (keys[i] == key)
+        return values[i];
+      i = (i + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+  * Removes key from the map, if present. The entries after it in its probe
+  * run are shifted back, so lookups never need tombstones.
+  */
+  public void remove(long key) {
+    if (key == EMPTY) {
+      if (hasEmptyKey)
+        size--;
+      hasEmptyKey = false;
+      return;
+    }
+    int hole = LongHashSet.hash(key) & mask;
+    while (keys[hole] != key) {
+      if (keys[hole] == EMPTY)
+        return;
+      hole = (hole + 1) & mask;
+    }
+    size--;
+    for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+      int home = LongHashSet.hash(keys[i]) & mask;
+      // the entry may move back only if the hole lies between its home slot and it
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        values[hole] = values[i];
+        hole = i;
+      }
+    }
+    keys[hole] = EMPTY;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+  * Removes every entry. The table shrinks as LongHashSet.clear() does, to
+  * fit the entries it held, if it is more than four times their size.
+  */
+  public void clear() {
+    int fit = LongHashSet.tableSize(size);
+    if (keys.length > 4 * fit)
+      allocate(fit);
+    else
+      Arrays.fill(keys, EMPTY);
+    hasEmptyKey = false;
+    size = 0;
+  }
+
+  /**
+  * Passes every entry in the map to action, in no particular order
+  */
+  public void forEach(EntryConsumer action) {
+    long[] k = keys;
+    for (int i = 0; i < k.length; i++) {
+      if (k[i] != EMPTY)
+        action.accept(k[i], values[i]);
+    }
+    if (hasEmptyKey)
+      action.accept(EMPTY, emptyKeyValue);
+  }
+
+  public interface EntryConsumer {
+    void accept(long key, int value);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+    resizeAt = capacity >>> 1;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(oldKeys.length << 1);
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] == EMPTY)
+        continue;
+      int i = LongHashSet.hash(oldKeys[j]) & mask;
+      while (keys[i] != EMPTY)
+        i = (i + 1) & mask;
+      keys[i] = oldKeys[j];
+      values[i] = oldValues[j];
+    }
+  }
+}
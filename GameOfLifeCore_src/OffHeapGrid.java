@@ -0,0 +1,285 @@
+/*
+  OFF-HEAP GRID:
+  A packed population stored outside the Java heap, for boards too large to
+  keep in arrays. The cells are packed exactly as in a PackedGrid, 64 to a
+  word, but the words live in direct ByteBuffers, or in a file mapped into
+  memory, and rows and columns are numbered with longs. A 100000x100000
+  board takes 1.2 GB of native memory and only a few hundred bytes of heap,
+  so the garbage collector never has to scan or copy it and its pauses do
+  not grow with the board.
+
+  Cell (row, col) is bit (col % 64) of word (col / 64) of the row. Bits past
+  the last column of a row are always zero.
+
+  MEMORY:
+  A single buffer cannot exceed 2 GB, so the rows are spread over chunks of
+  at most CHUNK_BYTES bytes, each holding whole rows. Direct memory is
+  limited by the JVM option -XX:MaxDirectMemorySize, which defaults to the
+  maximum heap size; a board larger than that needs the option raised, or
+  map() to keep its words in a file and let the operating system page them.
+  The memory is released when its buffers are garbage collected: when the
+  grid is, or as soon as release() lets go of them. Running short of direct
+  memory makes the JVM collect garbage before it gives up, so the memory of
+  released grids is reused even while the grid objects are still held.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class OffHeapGrid {
+
+  static final long CHUNK_BYTES = 1L << 30;
+
+  private final long rows;
+  private final long cols;
+  private final int wordsPerRow;
+  private final int rowsPerChunk;
+  private final LongBuffer[] chunks;
+
+  private OffHeapGrid(long rows, long cols, LongBuffer[] chunks, int rowsPerChunk) {
+    this.rows = rows;
+    this.cols = cols;
+    this.wordsPerRow = wordsPerRow(cols);
+    this.rowsPerChunk = rowsPerChunk;
+    this.chunks = chunks;
+  }
+
+  /**
+  * Creates a dead population of the given size in direct memory
+  *
+  * @param  rows the number of rows in the population
+  * @param  cols the number of columns in the population
+  * @throws IllegalArgumentException if a single row is larger than a chunk
+  */
+  public OffHeapGrid(long rows, long cols) {
+    this(rows, cols, new LongBuffer[chunkCount(rows, cols)], rowsPerChunk(cols));
+    for (int c = 0; c < chunks.length; c++)
+      chunks[c] = ByteBuffer.allocateDirect((int) chunkBytes(c)).order(ByteOrder.nativeOrder()).asLongBuffer();
+  }
+
+  /**
+  * Creates a population of the given size whose words are kept in a file
+  * mapped into memory, so that the board may be larger than the physical
+  * memory. The file is created, or cut or grown to the size of the board;
+  * cells read from an existing file of the same size keep their values.
+  *
+  * @param  file the file to hold the words, 8 * rows * ((cols + 63) / 64)
+  *              bytes in the byte order of the machine
+  * @param  rows the number of rows in the population
+  * @param  cols the number of columns in the population
+  * @throws IOException if the file cannot be created or mapped
+  */
+  public static OffHeapGrid map(Path file, long rows, long cols) throws IOException {
+    OffHeapGrid grid = new OffHeapGrid(rows, cols, new LongBuffer[chunkCount(rows, cols)], rowsPerChunk(cols));
+    long size = 8L * rows * grid.wordsPerRow;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if (channel.size() > size)
+        channel.truncate(size);
+      // the mapping stays valid after the channel is closed
+      long offset = 0;
+      for (int c = 0; c < grid.chunks.length; c++) {
+        long bytes = grid.chunkBytes(c);
+        grid.chunks[c] = channel.map(MapMode.READ_WRITE, offset, bytes)
+                                .order(ByteOrder.nativeOrder()).asLongBuffer();
+        offset += bytes;
+      }
+    }
+    return grid;
+  }
+
+  /**
+  * Creates an off-heap copy of a two-dimensional boolean array
+  *
+  * @param  population a two-dimensional boolean array
+  */
+  public static OffHeapGrid fromMatrix(boolean[][] population) {
+    int cols = (population.length > 0) ? population[0].length : 0;
+    OffHeapGrid grid = new OffHeapGrid(population.length, cols);
+    grid.load(population, 0, 0);
+    return grid;
+  }
+
+  /**
+  * Copies a two-dimensional boolean array into this grid with its top left
+  * corner at (top, left). Cells that fall outside the grid are dropped;
+  * cells of the grid outside the array are left unchanged.
+  *
+  * @param  population a two-dimensional boolean array
+  * @param  top the row of the grid that receives row 0 of the array
+  * @param  left the column of the grid that receives column 0 of the array
+  */
+  public void load(boolean[][] population, long top, long left) {
+    for (int r = 0; r < population.length; r++) {
+      long row = top + r;
+      if (row < 0 || row >= rows)
+        continue;
+      for (int c = 0; c < population[r].length; c++) {
+        long col = left + c;
+        if (col >= 0 && col < cols)
+          set(row, col, population[r][c]);
+      }
+    }
+  }
+
+  /**
+  * Overwrites a two-dimensional boolean array with the rectangle of this
+  * grid whose top left corner is at (top, left). Cells of the rectangle
+  * outside the grid are dead.
+  *
+  * @param  population a two-dimensional boolean array to be written
+  * @param  top the row of the grid at row 0 of the array
+  * @param  left the column of the grid at column 0 of the array
+  */
+  public void store(boolean[][] population, long top, long left) {
+    for (int r = 0; r < population.length; r++) {
+      long row = top + r;
+      for (int c = 0; c < population[r].length; c++) {
+        long col = left + c;
+        population[r][c] = row >= 0 && row < rows && col >= 0 && col < cols && get(row, col);
+      }
+    }
+  }
+
+  /**
+  * Returns a new two-dimensional boolean array holding a rectangle of this
+  * grid. Cells of the rectangle outside the grid are dead.
+  *
+  * @param  top the row of the grid at row 0 of the array
+  * @param  left the column of the grid at column 0 of the array
+  * @param  rows the number of rows of the rectangle
+  * @param  cols the number of columns of the rectangle
+  */
+  public boolean[][] toMatrix(long top, long left, int rows, int cols) {
+    boolean[][] population = new boolean[rows][cols];
+    store(population, top, left);
+    return population;
+  }
+
+  public boolean get(long row, long col) {
+    return (chunk(row).get(index(row, col)) & (1L << col)) != 0;
+  }
+
+  public void set(long row, long col, boolean alive) {
+    LongBuffer chunk = chunk(row);
+    int i = index(row, col);
+    if (alive)
+      chunk.put(i, chunk.get(i) | (1L << col));
+    else
+      chunk.put(i, chunk.get(i) & ~(1L << col));
+  }
+
+  /**
+  * Kills every cell
+  */
+  public void clear() {
+    long[] dead = new long[wordsPerRow];
+    for (long row = 0; row < rows; row++)
+      putRow(row, dead, 0);
+  }
+
+  /**
+  * Lets go of the grid's buffers, so that their memory is freed by the next
+  * garbage collection even if the grid itself is still referenced. The grid
+  * must not be used afterwards.
+  */
+  public void release() {
+    Arrays.fill(chunks, null);
+  }
+
+  /**
+  * Copies the cells of another grid of the same size into this grid
+  */
+  public void copyFrom(OffHeapGrid other) {
+    for (int c = 0; c < chunks.length; c++)
+      chunks[c].put(0, other.chunks[c], 0, other.chunks[c].capacity());
+  }
+
+  /**
+  * Returns the number of living cells
+  */
+  public long population() {
+    long count = 0;
+    for (LongBuffer chunk : chunks) {
+      for (int i = 0; i < chunk.capacity(); i++)
+        count += Long.bitCount(chunk.get(i));
+    }
+    return count;
+  }
+
+  public long rows() {
+    return rows;
+  }
+
+  public long cols() {
+    return cols;
+  }
+
+  public int wordsPerRow() {
+    return wordsPerRow;
+  }
+
+  /**
+  * Copies the words of a row into words, starting at offset
+  */
+  void getRow(long row, long[] words, int offset) {
+    chunk(row).get(index(row, 0), words, offset, wordsPerRow);
+  }
+
+  /**
+  * Overwrites the words of a row with those of words, starting at offset
+  */
+  void putRow(long row, long[] words, int offset) {
+    chunk(row).put(index(row, 0), words, offset, wordsPerRow);
+  }
+
+  /**
+  * Returns a mask of the bits of the last word in a row that hold cells
+  */
+  long lastWordMask() {
+    int used = (int) (cols & 63);
+    return (used == 0) ? -1L : (1L << used) - 1;
+  }
+
+  private LongBuffer chunk(long row) {
+    return chunks[(int) (row / rowsPerChunk)];
+  }
+
+  /**
+  * Returns the index of the word holding (row, col) within its chunk
+  */
+  private int index(long row, long col) {
+    return (int) (row % rowsPerChunk) * wordsPerRow + (int) (col >>> 6);
+  }
+
+  private long chunkBytes(int chunk) {
+    long chunkRows = Math.min(rowsPerChunk, rows - (long) chunk * rowsPerChunk);
+    return 8L * chunkRows * wordsPerRow;
+  }
+
+  private static int wordsPerRow(long cols) {
+    if (cols < 0 || ((cols + 63) >>> 6) > CHUNK_BYTES / 8)
+      throw new IllegalArgumentException("a row of " + cols + " columns does not fit in a chunk");
+    return (int) ((cols + 63) >>> 6);
+  }
+
+  private static int rowsPerChunk(long cols) {
+    return (int) (CHUNK_BYTES / 8 / Math.max(1, wordsPerRow(cols)));
+  }
+
+  private static int chunkCount(long rows, long cols) {
+    if (rows < 0)
+      throw new IllegalArgumentException("negative number of rows: " + rows);
+    long count = (rows + rowsPerChunk(cols) - 1) / rowsPerChunk(cols);
+    if (count > Integer.MAX_VALUE)
+      throw new IllegalArgumentException(rows + "x" + cols + " cells do not fit in memory");
+    return (int) count;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+  PACKED ENGINE:
+  Steps a PackedGrid one generation forward, 64 cells at a time. An
+  OffHeapGrid, packed the same way, is stepped with the same word logic,
+  its rows copied through a three-row window on the heap.
+
+  For every word of a row the eight neighbors of each of its 64 cells are
+  lined up as eight words: the words above, at and below the cell, each
+  shifted one column west and one column east (borrowing the edge bit from
+  the adjacent word). The eight words are then added together bit by bit
+  with half adders into a three-bit counter per cell:
+
+    ones  - bit 0 of the neighbor count
+    twos  - bit 1 of the neighbor count
+    fours - set once the count reaches four (it never clears again)
+
+  A cell lives in the next generation if its count is three, or if its count
+  is two and it is alive, which is "twos and not fours, and ones or alive".
+
+  OTHER RULES:
+  Other Life-like rules need the exact count, so a fourth bit (eights) is
+  kept and the fours no longer stick. For every count n in the rule, the
+  cells whose count equals n are found by comparing the four count words
+  with the bits of n, and are kept if the rule lets a cell of their state
+  live with n neighbors.
+*/
+
+public class PackedEngine {
+
+  /**
+  * Applies the Game of Life rules to every cell of current and places the
+  * results in next. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  */
+  public static void generate(PackedGrid current, PackedGrid next) {
+    step(current, next, 0, current.rows(), Rule.LIFE);
+  }
+
+  /**
+  * Applies a Life-like rule to every cell of current and places the results
+  * in next. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public static void generate(PackedGrid current, PackedGrid next, Rule rule) {
+    step(current, next, 0, current.rows(), rule);
+  }
+
+  /**
+  * Computes the next generation of rows [fromRow, toRow) of current into the
+  * same rows of next. Rows outside the range are read but never written.
+  */
+  static void step(PackedGrid current, PackedGrid next, int fromRow, int toRow, Rule rule) {
+    long[] in = current.words();
+    long[] out = next.words();
+    int rows = current.rows();
+    int wpr = current.wordsPerRow();
+    long lastMask = current.lastWordMask();
+
+    for (int row = fromRow; row < toRow; row++) {
+      int base = row * wpr;
+      int up = (row > 0) ? base - wpr : -1;
+      int down = (row < rows - 1) ? base + wpr : -1;
+      for (int w = 0; w < wpr; w++) {
+        long mask = (w == wpr - 1) ? lastMask : -1L;
+        out[base + w] = stepWord(in, up, base, down, w, wpr, rule) & mask;
+      }
+    }
+  }
+
+  /**
+  * Applies a Life-like rule to every cell of an off-heap grid and places
+  * the results in next. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public static void generate(OffHeapGrid current, OffHeapGrid next, Rule rule) {
+    step(current, next, 0, current.rows(), rule);
+  }
+
+  /**
+  * Computes the next generation of rows [fromRow, toRow) of an off-heap
+  * grid into the same rows of next. The rows are streamed through a window
+  * of three rows on the heap, each read once, so the words of the board are
+  * never indexed on the heap.
+  */
+  static void step(OffHeapGrid current, OffHeapGrid next, long fromRow, long toRow, Rule rule) {
+    long rows = current.rows();
+    int wpr = current.wordsPerRow();
+    long lastMask = current.lastWordMask();
+    if (wpr == 0)
+      return;
+    long[] window = new long[3 * wpr]; // the rows above, at and below the row being stepped
+    long[] out = new long[wpr];
+    int up = 0;
+    int mid = wpr;
+    int down = 2 * wpr;
+    if (fromRow > 0)
+      current.getRow(fromRow - 1, window, up);
+    if (fromRow < toRow)
+      current.getRow(fromRow, window, mid);
+
+    for (long row = fromRow; row < toRow; row++) {
+      boolean above = row > 0;
+      boolean below = row < rows - 1;
+      if (below)
+        current.getRow(row + 1, window, down);
+      for (int w = 0; w < wpr; w++)
+        out[w] = stepWord(window, above ? up : -1, mid, below ? down : -1, w, wpr, rule);
+      out[wpr - 1] &= lastMask;
+      next.putRow(row, out, 0);
+      int free = up;
+      up = mid;
+      mid = down;
+      down = free;
+    }
+  }
+
+  /**
+  * Computes the next generation of word w of the row starting at index mid
+  *
+  * @param  in the packed population
+  * @param  up index of the row above, or -1 if there is none
+  * @param  mid index of the row being stepped
+  * @param  down index of the row below, or -1 if there is none
+  * @param  w the word within the row
+  * @param  wpr the number of words per row
+  * @param  rule the rule to apply
+  */
+  static long stepWord(long[] in, int up, int mid, int down, int w, int wpr, Rule rule) {
+    long a = word(in, up, w, wpr);
+    long aw = (a << 1) | (word(in, up, w - 1, wpr) >>> 63);
+    long ae = (a >>> 1) | (word(in, up, w + 1, wpr) << 63);
+
+    long c = in[mid + w];
+    long cw = (c << 1) | (word(in, mid, w - 1, wpr) >>> 63);
+    long ce = (c >>> 1) | (word(in, mid, w + 1, wpr) << 63);
+
+    long b = word(in, down, w, wpr);
+    long bw = (b << 1) | (word(in, down, w - 1, wpr) >>> 63);
+    long be = (b >>> 1) | (word(in, down, w + 1, wpr) << 63);
+
+    if (rule.isLife())
+      return rule(c, aw, a, ae, cw, ce, bw, b, be);
+    return rule(rule, c, aw, a, ae, cw, ce, bw, b, be);
+  }
+
+  /**
+  * Applies B3/S23 to 64 cells given the cells and their eight neighbor words
+  */
+  static long rule(long alive, long n0, long n1, long n2, long n3,
+                   long n4, long n5, long n6, long n7) {
+    long ones = 0L;
+    long twos = 0L;
+    long fours = 0L;
+    long carry;
+
+    carry = ones & n0; ones ^= n0; fours |= twos & carry; twos ^= carry;
+    carry = ones & n1; ones ^= n1; fours |= twos & carry; twos ^= carry;
+    carry = ones & n2; ones ^= n2; fours |= twos & carry; twos ^= carry;
+    carry = ones & n3; ones ^= n3; fours |= twos & carry; twos ^= carry;
+    carry = ones & n4; ones ^= n4; fours |= twos & carry; twos ^= carry;
+    carry = ones & n5; ones ^= n5; fours |= twos & carry; twos ^= carry;
+    carry = ones & n6; ones ^= n6; fours |= twos & carry; twos ^= carry;
+    carry = ones & n7; ones ^= n7; fours |= twos & carry; twos ^= carry;
+
+    return twos & ~fours & (ones | alive);
+  }
+
+  /**
+  * Applies any Life-like rule to 64 cells given the cells and their eight
+  * neighbor words
+  */
+  static long rule(Rule rule, long alive, long n0, long n1, long n2, long n3,
+                   long n4, long n5, long n6, long n7) {
+    long ones = 0L;
+    long twos = 0L;
+    long fours = 0L;
+    long eights = 0L;
+    long carry;
+    long carry2;
+
+    carry = ones & n0; ones ^= n0; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n1; ones ^= n1; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n2; ones ^= n2; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n3; ones ^= n3; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n4; ones ^= n4; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n5; ones ^= n5; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n6; ones ^= n6; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+    carry = ones & n7; ones ^= n7; carry2 = twos & carry; twos ^= carry; eights |= fours & carry2; fours ^= carry2;
+
+    int birth = rule.birth();
+    int survival = rule.survival();
+    long result = 0L;
+    for (int count = 0; count <= 8; count++) {
+      boolean born = (birth & (1 << count)) != 0;
+      boolean survives = (survival & (1 << count)) != 0;
+      if (!born && !survives)
+        continue;
+      long equal = (((count & 1) != 0) ? ones : ~ones)
+                 & (((count & 2) != 0) ? twos : ~twos)
+                 & (((count & 4) != 0) ? fours : ~fours)
+                 & (((count & 8) != 0) ? eights : ~eights);
+      if (born)
+        result |= equal & ~alive;
+      if (survives)
+        result |= equal & alive;
+    }
+    return result;
+  }
+
+  /**
+  * Returns word w of the row starting at index row, or an empty word if the
+  * row or word lies outside the population
+  */
+  private static long word(long[] in, int row, int w, int wpr) {
+    if (row < 0 || w < 0 || w >= wpr)
+      return 0L;
+    return in[row + w];
+  }
+}
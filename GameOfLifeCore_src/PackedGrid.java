@@ -0,0 +1,148 @@
+/*
+  PACKED GRID:
+  A population stored as bits instead of booleans. Each row is split into
+  64-cell words of a single long array, so a cell takes one bit of memory
+  instead of one byte.
+
+  Cell (row, col) is bit (col % 64) of word (col / 64) of the row. Bits past
+  the last column of a row are always zero.
+
+  The words are one Java array, so a grid holds at most MAX_WORDS words,
+  about 137 billion cells; larger boards need an OffHeapGrid.
+*/
+
+public class PackedGrid {
+
+  // the longest array most JVMs can allocate
+  static final int MAX_WORDS = Integer.MAX_VALUE - 8;
+
+  private final int rows;
+  private final int cols;
+  private final int wordsPerRow;
+  private final long[] words;
+
+  /**
+  * Creates a dead population of the given size
+  *
+  * @param  rows the number of rows in the population
+  * @param  cols the number of columns in the population
+  * @throws IllegalArgumentException if the grid needs more than MAX_WORDS
+  *         words
+  */
+  public PackedGrid(int rows, int cols) {
+    this.rows = rows;
+    this.cols = cols;
+    this.wordsPerRow = (cols + 63) >>> 6;
+    this.words = new long[words(rows, wordsPerRow)];
+  }
+
+  private static int words(int rows, int wordsPerRow) {
+    long words = (long) rows * wordsPerRow;
+    if (words > MAX_WORDS)
+      throw new IllegalArgumentException("a packed grid holds at most " + MAX_WORDS + " words, not " 
+          + rows + " rows of " + wordsPerRow + "; use an OffHeapGrid");
+    return Math.toIntExact(words);
+  }
+
+  /**
+  * Creates a packed copy of a two-dimensional boolean array
+  *
+  * @param  population a two-dimensional boolean array
+  */
+  public static PackedGrid fromMatrix(boolean[][] population) {
+    int cols = (population.length > 0) ? population[0].length : 0;
+    PackedGrid grid = new PackedGrid(population.length, cols);
+    grid.load(population);
+    return grid;
+  }
+
+  /**
+  * Overwrites this grid with the values of an identically sized
+  * two-dimensional boolean array
+  *
+  * @param  population a two-dimensional boolean array
+  */
+  public void load(boolean[][] population) {
+    for (int row = 0; row < rows; row++) {
+      int base = row * wordsPerRow;
+      for (int w = 0; w < wordsPerRow; w++) {
+        long word = 0L;
+        int end = Math.min(64, cols - (w << 6));
+        for (int bit = 0; bit < end; bit++) {
+          if (population[row][(w << 6) + bit])
+            word |= 1L << bit;
+        }
+        words[base + w] = word;
+      }
+    }
+  }
+
+  /**
+  * Writes this grid into an identically sized two-dimensional boolean array,
+  * so it can be printed with GameOfLifeCLI.printMatrix
+  *
+  * @param  population a two-dimensional boolean array to be written
+  */
+  public void store(boolean[][] population) {
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++)
+        population[row][col] = get(row, col);
+    }
+  }
+
+  /**
+  * Returns a new two-dimensional boolean array holding this grid
+  */
+  public boolean[][] toMatrix() {
+    boolean[][] population = new boolean[rows][cols];
+    store(population);
+    return population;
+  }
+
+  public boolean get(int row, int col) {
+    return (words[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+  }
+
+  public void set(int row, int col, boolean alive) {
+    int i = row * wordsPerRow + (col >>> 6);
+    if (alive)
+      words[i] |= 1L << col;
+    else
+      words[i] &= ~(1L << col);
+  }
+
+  /**
+  * Copies the cells of another grid of the same size into this grid
+  */
+  public void copyFrom(PackedGrid other) {
+    System.arraycopy(other.words, 0, words, 0, words.length);
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int cols() {
+    return cols;
+  }
+
+  public int wordsPerRow() {
+    return wordsPerRow;
+  }
+
+  /**
+  * Returns the backing array, rows one after the other, wordsPerRow() words
+  * per row
+  */
+  long[] words() {
+    return words;
+  }
+
+  /**
+  * Returns a mask of the bits of the last word in a row that hold cells
+  */
+  long lastWordMask() {
+    int used = cols & 63;
+    return (used == 0) ? -1L : (1L << used) - 1;
+  }
+}
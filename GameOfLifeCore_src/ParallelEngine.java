@@ -0,0 +1,229 @@
+/*
+  PARALLEL ENGINE:
+  Steps a population on several threads at once by splitting the board into
+  bands of rows. Each band reads the current generation (including the rows
+  just outside the band) and writes only its own rows of the next
+  generation, so bands never interfere and the result is identical to the
+  single-threaded engines.
+
+  Bands are evaluated as fork/join tasks on a private ForkJoinPool. Boards
+  smaller than SEQUENTIAL_THRESHOLD cells, or engines created with a
+  parallelism of 1, are stepped on the calling thread because the cost of
+  forking would outweigh the work.
+
+  Boolean populations are stepped band by band with HaloEngine, either on a
+  plane with a dead border or on a torus. Packed grids always have a dead
+  border, and so do off-heap grids, whose bands are streamed row by row
+  through PackedEngine. All apply the engine's rule. With counting turned
+  on, each band of a boolean population counts its own population, births
+  and deaths, and stats() reports their sum for the last generation; the
+  bands also record which of their rows changed, for changedRows().
+*/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelEngine implements Engine {
+
+  static final int SEQUENTIAL_THRESHOLD = 128 * 128;
+
+  private final int parallelism;
+  private final boolean torus;
+  private final Rule rule;
+  private final GenerationStats stats = new GenerationStats();
+  private boolean counting;
+  private boolean[] changed = new boolean[0]; // rows changed by the last generation
+  private boolean[][] lastCurrent; // the population read by the last counted generation
+  private boolean[][] lastNext;    // the population written by it
+  private final ForkJoinPool pool;
+
+  /**
+  * Creates an engine that uses the given number of threads
+  *
+  * @param  parallelism the number of worker threads, 1 for single-threaded
+  * @param  torus true to step boolean populations on a torus, false for a 
+  *               dead border
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public ParallelEngine(int parallelism, boolean torus, Rule rule) {
+    if (parallelism < 1)
+      throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+    this.parallelism = parallelism;
+    this.torus = torus;
+    this.rule = rule;
+    this.pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+  }
+
+  /**
+  * Creates a Game of Life engine that uses the given number of threads
+  *
+  * @param  parallelism the number of worker threads, 1 for single-threaded
+  * @param  torus true to step boolean populations on a torus, false for a 
+  *               dead border
+  */
+  public ParallelEngine(int parallelism, boolean torus) {
+    this(parallelism, torus, Rule.LIFE);
+  }
+
+  /**
+  * Creates an engine with a dead border that uses the given number of threads
+  *
+  * @param  parallelism the number of worker threads, 1 for single-threaded
+  */
+  public ParallelEngine(int parallelism) {
+    this(parallelism, false);
+  }
+
+  /**
+  * Creates an engine that uses one thread per available processor
+  */
+  public ParallelEngine() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public int parallelism() {
+    return parallelism;
+  }
+
+  /**
+  * Turns counting the population, births and deaths on or off
+  */
+  public void setCounting(boolean counting) {
+    this.counting = counting;
+  }
+
+  /**
+  * Returns the population, births and deaths of the last generation of a
+  * boolean population, or null while counting is turned off
+  */
+  public GenerationStats stats() {
+    return counting ? stats : null;
+  }
+
+  /**
+  * Returns which rows changed in the generation that stepped current into
+  * next, or null unless that generation was counted
+  */
+  public boolean[] changedRows(boolean[][] current, boolean[][] next) {
+    return (current == lastCurrent && next == lastNext) ? changed : null;
+  }
+
+  /**
+  * Applies the Game of Life rules to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population
+  */
+  public void generate(boolean[][] current, boolean[][] next) {
+    int rows = current.length;
+    int cols = (rows > 0) ? current[0].length : 0;
+    GenerationStats counts = counting ? stats : null;
+    if (counts != null) {
+      counts.clear();
+      if (changed.length != rows)
+        changed = new boolean[rows];
+    }
+    boolean[] rowsChanged = changed;
+    if (sequential(rows, cols)) {
+      HaloEngine.step(current, next, 0, rows, torus, rule, new byte[3][cols + 2], counts, rowsChanged);
+    } else {
+      // every band pads and flags only its own rows, so bands share no scratch memory
+      forEachBand(rows, (from, to) -> 
+          HaloEngine.step(current, next, from, to, torus, rule, new byte[3][cols + 2], counts, rowsChanged));
+    }
+    lastCurrent = counting ? current : null;
+    lastNext = counting ? next : null;
+  }
+
+  /**
+  * Applies the Game of Life rules to every cell of a packed grid and places
+  * the results in next. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  */
+  public void generate(PackedGrid current, PackedGrid next) {
+    if (sequential(current.rows(), current.cols())) {
+      PackedEngine.generate(current, next, rule);
+      return;
+    }
+    forEachBand(current.rows(), (from, to) -> PackedEngine.step(current, next, from, to, rule));
+  }
+
+  /**
+  * Applies the engine's rule to every cell of an off-heap grid and places
+  * the results in next. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  */
+  public void generate(OffHeapGrid current, OffHeapGrid next) {
+    long rows = current.rows();
+    if (pool == null || (double) rows * current.cols() < SEQUENTIAL_THRESHOLD) {
+      PackedEngine.generate(current, next, rule);
+      return;
+    }
+    // the rows may not fit an int, so the bands are numbered instead
+    int bands = (int) Math.min(rows, parallelism * 16L);
+    forEachBand(bands, (from, to) -> 
+        PackedEngine.step(current, next, rows * from / bands, rows * to / bands, rule));
+  }
+
+  /**
+  * Stops the worker threads. The engine must not be used afterwards.
+  */
+  public void shutdown() {
+    if (pool != null)
+      pool.shutdown();
+  }
+
+  private boolean sequential(int rows, int cols) {
+    return pool == null || (long) rows * cols < SEQUENTIAL_THRESHOLD;
+  }
+
+  /**
+  * Runs an action over all rows, split into bands, and waits for it to finish
+  */
+  private void forEachBand(int rows, RowAction action) {
+    // a few bands per thread so that work stealing can even out slow bands
+    int grain = Math.max(1, rows / (parallelism * 4));
+    pool.invoke(new Band(action, 0, rows, grain));
+  }
+
+  /**
+  * Work performed on the rows [from, to) of the board
+  */
+  interface RowAction {
+    void run(int from, int to);
+  }
+
+  private static class Band extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final RowAction action;
+    private final int from;
+    private final int to;
+    private final int grain;
+
+    Band(RowAction action, int from, int to, int grain) {
+      this.action = action;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        action.run(from, to);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new Band(action, from, mid, grain), new Band(action, mid, to, grain));
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/*
+  RULE:
+  A Life-like rule in B/S notation: the neighbor counts that bring a dead
+  cell to life (B, for birth) and the counts that keep a living cell alive
+  (S, for survival). Conway's Game of Life is B3/S23.
+
+  A rule is compiled into lookup tables, so that an engine evaluates it with
+  a single lookup instead of a chain of comparisons:
+
+    next(alive, count)     an 18-entry table indexed by state and count,
+                           also kept as the 18 low bits of an int
+    next(neighborhood)     a 512-entry table indexed by the nine bits of a
+                           3x3 neighborhood, for engines that hold cells as
+                           bits; bit 4 is the cell itself
+
+  NOTATION:
+  "B36/S23" or "b36/s23"    birth on 3 or 6, survival on 2 or 3 (HighLife)
+  "S23/B36"                 the same, parts in either order
+  "23/36"                   the older survival/birth form without letters
+  "B2/S"                    an empty part is allowed (Seeds)
+  The names life, highlife, daynight and seeds stand for their rules.
+
+  Rules with B0 bring the empty space around a pattern to life, so the
+  unbounded engines (SparseUniverse and HashLife) reject them.
+*/
+
+import java.util.Locale;
+
+public final class Rule {
+
+  public static final Rule LIFE = new Rule(1 << 3, (1 << 2) | (1 << 3));
+
+  private final int birth;    // bit n is set if n neighbors bring a dead cell to life
+  private final int survival; // bit n is set if n neighbors keep a living cell alive
+  private final boolean[] byCount = new boolean[18];
+  private final int countBits; // byCount as the bits of an int
+  private final boolean[] byNeighborhood = new boolean[512];
+
+  private Rule(int birth, int survival) {
+    this.birth = birth;
+    this.survival = survival;
+    for (int count = 0; count <= 8; count++) {
+      byCount[count] = (birth & (1 << count)) != 0;
+      byCount[9 + count] = (survival & (1 << count)) != 0;
+    }
+    this.countBits = birth | (survival << 9);
+    for (int bits = 0; bits < 512; bits++) {
+      int alive = (bits >>> 4) & 1;
+      byNeighborhood[bits] = byCount[alive * 9 + Integer.bitCount(bits) - alive];
+    }
+  }
+
+  /**
+  * Parses a rule in B/S notation, e.g. "B36/S23", or one of the names life,
+  * highlife, daynight and seeds
+  *
+  * @param  text the rule
+  * @throws IllegalArgumentException if text is not a rule
+  */
+  public static Rule parse(String text) {
+    String rule = text.trim().toUpperCase(Locale.ROOT);
+    switch (rule) {
+      case "LIFE":      return LIFE;
+      case "HIGHLIFE":  rule = "B36/S23";
+                        break;
+      case "DAYNIGHT":  rule = "B3678/S34678";
+                        break;
+      case "SEEDS":     rule = "B2/S";
+                        break;
+      default:          break;
+    }
+
+    int slash = rule.indexOf('/');
+    if (slash < 0 || rule.indexOf('/', slash + 1) >= 0)
+      throw new IllegalArgumentException("not a B/S rule: " + text);
+    String first = rule.substring(0, slash);
+    String second = rule.substring(slash + 1);
+    int birth;
+    int survival;
+    if (first.startsWith("B") && second.startsWith("S")) {
+      birth = counts(first.substring(1), text);
+      survival = counts(second.substring(1), text);
+    } else if (first.startsWith("S") && second.startsWith("B")) {
+      survival = counts(first.substring(1), text);
+      birth = counts(second.substring(1), text);
+    } else {
+      survival = counts(first, text);
+      birth = counts(second, text);
+    }
+    return (birth == LIFE.birth && survival == LIFE.survival) ? LIFE : new Rule(birth, survival);
+  }
+
+  private static int counts(String digits, String text) {
+    int mask = 0;
+    for (int i = 0; i < digits.length(); i++) {
+      char c = digits.charAt(i);
+      if (c < '0' || c > '8')
+        throw new IllegalArgumentException("not a B/S rule: " + text);
+      mask |= 1 << (c - '0');
+    }
+    return mask;
+  }
+
+  /**
+  * Returns whether a cell lives in the next generation
+  *
+  * @param  alive whether the cell is alive now
+  * @param  count the number of living neighbors, 0 to 8
+  */
+  public boolean next(boolean alive, int count) {
+    return byCount[(alive ? 9 : 0) + count];
+  }
+
+  /**
+  * Returns the table behind next(alive, count) as the bits of an int: bit
+  * count for a dead cell and bit 9 + count for a living one
+  */
+  int countBits() {
+    return countBits;
+  }
+
+  /**
+  * Returns whether the center of a 3x3 neighborhood lives in the next
+  * generation
+  *
+  * @param  neighborhood the nine cells, row by row from the north-west
+  *                      corner in bits 0 to 8; bit 4 is the cell itself
+  */
+  public boolean next(int neighborhood) {
+    return byNeighborhood[neighborhood];
+  }
+
+  /**
+  * Returns the neighbor counts that bring a dead cell to life, as bit n for
+  * a count of n
+  */
+  public int birth() {
+    return birth;
+  }
+
+  /**
+  * Returns the neighbor counts that keep a living cell alive, as bit n for
+  * a count of n
+  */
+  public int survival() {
+    return survival;
+  }
+
+  /**
+  * Returns true for Conway's Game of Life, B3/S23
+  */
+  public boolean isLife() {
+    return this == LIFE;
+  }
+
+  /**
+  * Returns true if empty space comes to life, which an unbounded universe
+  * cannot represent
+  */
+  public boolean birthOnZero() {
+    return (birth & 1) != 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof Rule && ((Rule) o).birth == birth && ((Rule) o).survival == survival;
+  }
+
+  @Override
+  public int hashCode() {
+    return birth * 31 + survival;
+  }
+
+  /**
+  * Returns the rule in B/S notation, e.g. "B3/S23"
+  */
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder("B");
+    for (int n = 0; n <= 8; n++) {
+      if ((birth & (1 << n)) != 0)
+        s.append(n);
+    }
+    s.append("/S");
+    for (int n = 0; n <= 8; n++) {
+      if ((survival & (1 << n)) != 0)
+        s.append(n);
+    }
+    return s.toString();
+  }
+}
@@ -0,0 +1,239 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class Seeds {
+  
+  private static final int DENSITY_BITS = 16; // a soup's density is rounded to 1/65536
+  
+  /**
+  * Initializes a dead population, row by row with a bulk fill so that rows 
+  * of any length are cleared
+  *
+  * @param  population a two-dimensional boolean array  
+  */
+  public static void wasteland(boolean[][] population) {
+    for (boolean[] row : population)
+      Arrays.fill(row, false);
+  }
+  
+  /**
+  * Initializes a dead packed population, 64 cells per word
+  *
+  * @param  grid the population to clear
+  */
+  public static void wasteland(PackedGrid grid) {
+    Arrays.fill(grid.words(), 0L);
+  }
+  
+  /**
+  * Initializes a dead off-heap population
+  *
+  * @param  grid the population to clear
+  */
+  public static void wasteland(OffHeapGrid grid) {
+    grid.clear();
+  }
+  
+  /**
+  * Fills a population with a random soup, each cell alive with the given 
+  * probability. The same seed, density and size always give the same soup, 
+  * whether it is planted in a boolean array, a PackedGrid or an OffHeapGrid.
+  *
+  * @param  population a two-dimensional boolean array to be overwritten
+  * @param  density the probability of a cell being alive, from 0 to 1
+  * @param  seed the seed of the random numbers
+  */
+  public static void soup(boolean[][] population, double density, long seed) {
+    int threshold = threshold(density);
+    SplittableRandom random = new SplittableRandom(seed);
+    for (boolean[] row : population) {
+      for (int base = 0; base < row.length; base += 64) {
+        long word = soupWord(random, threshold);
+        int end = Math.min(64, row.length - base);
+        for (int bit = 0; bit < end; bit++)
+          row[base + bit] = ((word >>> bit) & 1L) != 0;
+      }
+    }
+  }
+  
+  /**
+  * Fills a packed population with a random soup, each cell alive with the 
+  * given probability, one random word of 64 cells at a time
+  *
+  * @param  grid the population to be overwritten
+  * @param  density the probability of a cell being alive, from 0 to 1
+  * @param  seed the seed of the random numbers
+  */
+  public static void soup(PackedGrid grid, double density, long seed) {
+    int threshold = threshold(density);
+    SplittableRandom random = new SplittableRandom(seed);
+    long[] words = grid.words();
+    int wordsPerRow = grid.wordsPerRow();
+    long mask = grid.lastWordMask();
+    for (int row = 0; row < grid.rows(); row++) {
+      int base = row * wordsPerRow;
+      for (int w = 0; w < wordsPerRow; w++)
+        words[base + w] = soupWord(random, threshold);
+      if (wordsPerRow > 0)
+        words[base + wordsPerRow - 1] &= mask; // keep the bits past the last column zero
+    }
+  }
+  
+  /**
+  * Fills an off-heap population with a random soup, the same soup that a 
+  * PackedGrid of its size gets, one row at a time
+  *
+  * @param  grid the population to be overwritten
+  * @param  density the probability of a cell being alive, from 0 to 1
+  * @param  seed the seed of the random numbers
+  */
+  public static void soup(OffHeapGrid grid, double density, long seed) {
+    int threshold = threshold(density);
+    SplittableRandom random = new SplittableRandom(seed);
+    int wordsPerRow = grid.wordsPerRow();
+    long[] words = new long[wordsPerRow];
+    long mask = grid.lastWordMask();
+    for (long row = 0; row < grid.rows(); row++) {
+      for (int w = 0; w < wordsPerRow; w++)
+        words[w] = soupWord(random, threshold);
+      if (wordsPerRow > 0)
+        words[wordsPerRow - 1] &= mask; // keep the bits past the last column zero
+      grid.putRow(row, words, 0);
+    }
+  }
+  
+  private static int threshold(double density) {
+    if (!(density >= 0 && density <= 1))
+      throw new IllegalArgumentException("density must be between 0 and 1: " + density);
+    return (int) Math.round(density * (1 << DENSITY_BITS));
+  }
+  
+  /**
+  * Returns 64 random cells, each alive with probability threshold / 65536. 
+  * The bits of threshold are read from the lowest: a 1 bit ORs a random word 
+  * into the result and a 0 bit ANDs one, which takes the probability p of a 
+  * bit being set to (1 + p) / 2 or p / 2. After the highest bit p is exactly 
+  * threshold / 65536, at a cost of at most 16 random words, and a single one 
+  * for a density of 1/2.
+  */
+  private static long soupWord(SplittableRandom random, int threshold) {
+    if (threshold == 0)
+      return 0L;
+    if (threshold == 1 << DENSITY_BITS)
+      return -1L;
+    long word = 0L;
+    for (int bit = Integer.numberOfTrailingZeros(threshold); bit < DENSITY_BITS; bit++) {
+      if (((threshold >>> bit) & 1) != 0)
+        word |= random.nextLong();
+      else
+        word &= random.nextLong();
+    }
+    return word;
+  }
+  
+  /**
+  * Plants a 3x3 R-Pentomino seed in a given dead population
+  *
+  */
+  public static void initRPentomino(boolean[][] p, int row, int col) {
+    p[row - 1][col - 1] = false;
+    p[row - 1][col] = true;
+    p[row - 1][col + 1] = true;
+    
+    p[row][col - 1] = true;
+    p[row][col] = true;
+    p[row][col + 1] = false;
+    
+    p[row + 1][col - 1] = false;
+    p[row + 1][col] = true;
+    p[row + 1][col + 1] = false;    
+  }
+  
+  public static void initBHeptomino(boolean[][] population, int row, int col) {
+    population[row - 1][col - 1] = true;
+    population[row - 1][col] = false;
+    population[row - 1][col + 1] = true;
+    population[row - 1][col + 2] = true;
+    
+    population[row][col - 1] = true;
+    population[row][col] = true;
+    population[row][col + 1] = true;
+    population[row][col + 2] = false;
+    
+    population[row + 1][col - 1] = false;
+    population[row + 1][col] = true;
+    population[row + 1][col + 1] = false;
+    population[row + 1][col + 2] = false;
+  }
+  
+  public static void initPiPentomino(boolean[][] population, int row, int col) {
+    population[row - 1][col - 1] = true;
+    population[row - 1][col] = true;
+    population[row - 1][col + 1] = true;
+    
+    population[row][col - 1] = true;
+    population[row][col] = false;
+    population[row][col + 1] = true;
+    
+    population[row + 1][col - 1] = true;
+    population[row + 1][col] = false;
+    population[row + 1][col + 1] = true;
+  }
+  
+  public static void initAcorn(boolean[][] p, int row, int col) {
+    p[row - 1][col - 3] = false;
+    p[row - 1][col - 2] = true;
+    p[row - 1][col - 1] = false;
+    p[row - 1][col] = false;
+    p[row - 1][col + 1] = false;
+    p[row - 1][col + 2] = false;
+    p[row - 1][col + 3] = false;
+    
+    p[row][col - 3] = false;
+    p[row][col - 2] = false;
+    p[row][col - 1] = false;
+    p[row][col] = true;
+    p[row][col + 1] = false;
+    p[row][col + 2] = false;
+    p[row][col + 3] = false;
+    
+    p[row + 1][col - 3] = true;
+    p[row + 1][col - 2] = true;
+    p[row + 1][col - 1] = false;
+    p[row + 1][col] = false;
+    p[row + 1][col + 1] = true;
+    p[row + 1][col + 2] = true;
+    p[row + 1][col + 3] = true;
+  }
+  
+  public static void initGlider(boolean[][] population, int row, int col) {
+    population[row - 1][col - 1] = false;
+    population[row - 1][col] = true;
+    population[row - 1][col + 1] = false;
+    
+    population[row][col - 1] = false;
+    population[row][col] = false;
+    population[row][col + 1] = true;
+    
+    population[row + 1][col - 1] = true;
+    population[row + 1][col] = true;
+    population[row + 1][col + 1] = true;  
+  }
+  
+  public static void initBlockGlider(boolean[][] population, int row, int col) {
+    population[row - 1][col - 1] = true;
+    population[row - 1][col] = true;
+    population[row - 1][col + 1] = false;
+    population[row - 1][col + 2] = false;
+    
+    population[row][col - 1] = true;
+    population[row][col] = false;
+    population[row][col + 1] = true;
+    population[row][col + 2] = false;
+    
+    population[row + 1][col - 1] = false;
+    population[row + 1][col] = false;
+    population[row + 1][col + 1] = true;
+    population[row + 1][col + 2] = true;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+/*
+  SPARSE UNIVERSE:
+  An unbounded population that stores only its living cells. Patterns can
+  grow in every direction without running into an edge, and the memory and
+  time needed per generation depend on the number of living cells instead
+  of the area of a board.
+
+  A cell at (row, col) is stored as the long key (row << 32) | col. Rows and
+  columns may be any int, and neighbors wrap around at the ends of the int
+  range, so the universe is a 2^32 x 2^32 torus.
+
+  To compute a generation every living cell adds 2 to the tally of each of
+  its eight neighbors and 1 to its own tally. Afterwards a cell's tally holds
+  its neighbor count in the upper bits and whether it is alive in bit 0, and
+  only cells that appear in the tally can be alive in the next generation.
+  That holds for every Life-like rule without B0, which would bring the
+  infinite empty plane to life.
+*/
+
+public class SparseUniverse implements Universe {
+
+  private LongHashSet live = new LongHashSet();
+  private LongHashSet scratch = new LongHashSet();
+  private final LongIntHashMap tally = new LongIntHashMap();
+  private long generation;
+  private final Rule rule;
+  private final GenerationStats stats = new GenerationStats();
+  private long births;
+  private long deaths;
+
+  /**
+  * Creates an empty universe for the given rule
+  *
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  * @throws IllegalArgumentException if the rule has B0
+  */
+  public SparseUniverse(Rule rule) {
+    if (rule.birthOnZero())
+      throw new IllegalArgumentException("an unbounded universe cannot run a B0 rule: " + rule);
+    this.rule = rule;
+  }
+
+  /**
+  * Creates an empty Game of Life universe
+  */
+  public SparseUniverse() {
+    this(Rule.LIFE);
+  }
+
+  /**
+  * Creates a universe holding the living cells of a two-dimensional boolean
+  * array, with element [0][0] placed at (rowOffset, colOffset)
+  */
+  public static SparseUniverse fromMatrix(boolean[][] population, int rowOffset, int colOffset) {
+    return fromMatrix(population, rowOffset, colOffset, Rule.LIFE);
+  }
+
+  /**
+  * Creates a universe for the given rule holding the living cells of a
+  * two-dimensional boolean array, with element [0][0] placed at
+  * (rowOffset, colOffset)
+  */
+  public static SparseUniverse fromMatrix(boolean[][] population, int rowOffset, int colOffset, Rule rule) {
+    SparseUniverse universe = new SparseUniverse(rule);
+    for (int i = 0; i < population.length; i++) {
+      for (int j = 0; j < population[i].length; j++) {
+        if (population[i][j])
+          universe.set(rowOffset + i, colOffset + j, true);
+      }
+    }
+    return universe;
+  }
+
+  public boolean get(int row, int col) {
+    return live.contains(key(row, col));
+  }
+
+  /**
+  * Brings a cell to life. Cells can only be killed by the rules; to start
+  * over, create a new universe.
+  */
+  public void set(int row, int col, boolean alive) {
+    if (alive)
+      live.add(key(row, col));
+  }
+
+  /**
+  * Advances the universe by one generation
+  */
+  public void step() {
+    tally.clear();
+    live.forEach(cell -> {
+      int row = row(cell);
+      int col = col(cell);
+      tally.add(cell, 1);
+      tally.add(key(row - 1, col - 1), 2);
+      tally.add(key(row - 1, col), 2);
+      tally.add(key(row - 1, col + 1), 2);
+      tally.add(key(row, col - 1), 2);
+      tally.add(key(row, col + 1), 2);
+      tally.add(key(row + 1, col - 1), 2);
+      tally.add(key(row + 1, col), 2);
+      tally.add(key(row + 1, col + 1), 2);
+    });
+
+    LongHashSet next = scratch;
+    next.clear();
+    births = 0;
+    deaths = 0;
+    tally.forEach((cell, t) -> {
+      boolean alive = (t & 1) != 0;
+      if (rule.next(alive, t >>> 1)) {
+        next.add(cell);
+        if (!alive)
+          births++;
+      } else if (alive) {
+        deaths++;
+      }
+    });
+    scratch = live;
+    live = next;
+    generation++;
+    stats.set(live.size(), births, deaths);
+  }
+
+  /**
+  * Returns the number of living cells
+  */
+  public long population() {
+    return live.size();
+  }
+
+  /**
+  * Returns the population, births and deaths of the last generation
+  */
+  public GenerationStats stats() {
+    return stats;
+  }
+
+  public long generation() {
+    return generation;
+  }
+
+  /**
+  * Returns the smallest rectangle holding every living cell as
+  * {top, left, bottom, right} (inclusive), or null if nothing is alive
+  */
+  public int[] bounds() {
+    if (live.size() == 0)
+      return null;
+    int[] b = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    live.forEach(cell -> {
+      int row = row(cell);
+      int col = col(cell);
+      b[0] = Math.min(b[0], row);
+      b[1] = Math.min(b[1], col);
+      b[2] = Math.max(b[2], row);
+      b[3] = Math.max(b[3], col);
+    });
+    return b;
+  }
+
+  /**
+  * Copies a rectangular window of the universe into a new two-dimensional
+  * boolean array, e.g. for GameOfLifeCLI.printMatrix
+  *
+  * @param  top the row of the universe that becomes row 0
+  * @param  left the column of the universe that becomes column 0
+  */
+  public boolean[][] toMatrix(long top, long left, int rows, int cols) {
+    boolean[][] m = new boolean[rows][cols];
+    live.forEach(cell -> {
+      long i = row(cell) - top;
+      long j = col(cell) - left;
+      if (i >= 0 && i < rows && j >= 0 && j < cols)
+        m[(int) i][(int) j] = true;
+    });
+    return m;
+  }
+
+  static long key(int row, int col) {
+    return ((long) row << 32) | (col & 0xffffffffL);
+  }
+
+  static int row(long key) {
+    return (int) (key >> 32);
+  }
+
+  static int col(long key) {
+    return (int) key;
+  }
+}
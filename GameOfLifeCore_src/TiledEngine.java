@@ -0,0 +1,184 @@
+/*
+  TILED ENGINE:
+  Steps a PackedGrid in cache-sized tiles instead of whole-board sweeps, and
+  can fuse several generations into one pass over the board (temporal
+  blocking).
+
+  A row-major sweep reads and writes the whole board once per generation,
+  so a board larger than the cache is streamed through memory every
+  generation. Here the board is cut into tiles of a few hundred rows by a
+  few dozen words, small enough that two copies of a tile fit in the L2
+  cache. Each tile is copied into a scratch buffer together with a ghost
+  zone around it, stepped there for up to depth generations, and only its
+  middle is copied out. The board is read and written once per depth
+  generations instead of once per generation.
+
+  GHOST ZONE:
+  Cells just outside a scratch buffer count as dead, which is wrong unless
+  the buffer ends at the edge of the board. The error spreads by one cell
+  per generation, so a tile is given depth rows of ghost above and below
+  and one word (64 columns) left and right, and after depth generations its
+  middle is still exact. The ghost rows are stepped as well, shrinking by
+  one row at each end per generation, which costs about 2 * depth / tile
+  rows of extra work.
+
+  The engine keeps its scratch buffers between calls, so use one engine per
+  thread.
+*/
+
+public class TiledEngine {
+
+  static final int MAX_DEPTH = 64; // the one-word ghost columns hold for 64 generations
+  static final int DEFAULT_CACHE_BYTES = 256 * 1024;
+
+  private final int depth;
+  private final Rule rule;
+  private final int cacheBytes;
+  private long[] front = new long[0];
+  private long[] back = new long[0];
+
+  /**
+  * Creates an engine that fuses up to depth generations per pass, with
+  * tiles sized for the given cache
+  *
+  * @param  depth the number of generations stepped per pass, 1 to 64
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  * @param  cacheBytes the cache the two scratch copies of a tile must fit in
+  */
+  public TiledEngine(int depth, Rule rule, int cacheBytes) {
+    if (depth < 1 || depth > MAX_DEPTH)
+      throw new IllegalArgumentException("depth must be between 1 and " + MAX_DEPTH + ": " + depth);
+    this.depth = depth;
+    this.rule = rule;
+    this.cacheBytes = cacheBytes;
+  }
+
+  /**
+  * Creates an engine for the given rule with tiles sized for a 256 KB cache
+  *
+  * @param  depth the number of generations stepped per pass, 1 to 64
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public TiledEngine(int depth, Rule rule) {
+    this(depth, rule, DEFAULT_CACHE_BYTES);
+  }
+
+  /**
+  * Creates a Game of Life engine with tiles sized for a 256 KB cache
+  *
+  * @param  depth the number of generations stepped per pass, 1 to 64
+  */
+  public TiledEngine(int depth) {
+    this(depth, Rule.LIFE);
+  }
+
+  public int depth() {
+    return depth;
+  }
+
+  /**
+  * Computes the next generation of current into next, one tile at a time.
+  * Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the next generation
+  */
+  public void generate(PackedGrid current, PackedGrid next) {
+    generate(current, next, 1);
+  }
+
+  /**
+  * Computes the population the given number of generations after current
+  * into next, in a single pass over the board. Current is left unchanged.
+  *
+  * @param  current the grid holding the starting population
+  * @param  next an identically sized grid to receive the result
+  * @param  generations the number of generations, 1 to depth()
+  */
+  public void generate(PackedGrid current, PackedGrid next, int generations) {
+    if (generations < 1 || generations > depth)
+      throw new IllegalArgumentException("generations must be between 1 and " + depth + ": " + generations);
+    int rows = current.rows();
+    int wpr = current.wordsPerRow();
+    // two scratch copies of a tile and its ghost zone fill the cache; the
+    // ghost costs 2 * generations / rows + 2 / words of the tile, which is
+    // least when the tile is generations times taller (in rows) than wide
+    // (in words)
+    int budget = cacheBytes / 16;
+    int tileWords = Math.max(1, Math.min(wpr, (int) Math.sqrt((double) budget / generations)));
+    int tileRows = Math.max(generations, budget / (tileWords + 2) - 2 * generations);
+    for (int row = 0; row < rows; row += tileRows) {
+      for (int w = 0; w < wpr; w += tileWords)
+        stepTile(current, next, row, Math.min(rows, row + tileRows), w, Math.min(wpr, w + tileWords),
+                 generations);
+    }
+  }
+
+  /**
+  * Advances a pair of populations by the given number of generations,
+  * depth() generations per pass, and swaps the result in
+  *
+  * @param  generations the current population and the scratch population
+  * @param  count the number of generations to advance
+  */
+  public void advance(GenerationBuffer<PackedGrid> generations, long count) {
+    while (count > 0) {
+      int k = (int) Math.min(depth, count);
+      generate(generations.current(), generations.next(), k);
+      long generation = generations.generation();
+      generations.swap();
+      generations.setGeneration(generation + k);
+      count -= k;
+    }
+  }
+
+  /**
+  * Steps the tile of rows [r0, r1) and words [w0, w1) k generations forward
+  * in scratch and copies the result into next
+  */
+  private void stepTile(PackedGrid current, PackedGrid next, int r0, int r1, int w0, int w1, int k) {
+    long[] in = current.words();
+    long[] out = next.words();
+    int wpr = current.wordsPerRow();
+    // the ghost zone, clipped to the board
+    int top = Math.max(0, r0 - k);
+    int bottom = Math.min(current.rows(), r1 + k);
+    int left = Math.max(0, w0 - 1);
+    int right = Math.min(wpr, w1 + 1);
+    int height = bottom - top;
+    int width = right - left;
+    int size = height * width;
+    if (front.length < size) {
+      front = new long[size];
+      back = new long[size];
+    }
+    for (int r = 0; r < height; r++)
+      System.arraycopy(in, (top + r) * wpr + left, front, r * width, width);
+
+    // only the last word of a board row has bits past the last column
+    int lastWord = (right == wpr) ? width - 1 : -1;
+    long lastMask = current.lastWordMask();
+    long[] src = front;
+    long[] dst = back;
+    for (int s = 1; s <= k; s++) {
+      // the rows still needed after this generation
+      int from = Math.max(0, r0 - top - (k - s));
+      int to = Math.min(height, r1 - top + (k - s));
+      for (int r = from; r < to; r++) {
+        int mid = r * width;
+        int up = (r > 0) ? mid - width : -1;
+        int down = (r < height - 1) ? mid + width : -1;
+        for (int w = 0; w < width; w++)
+          dst[mid + w] = PackedEngine.stepWord(src, up, mid, down, w, width, rule);
+        if (lastWord >= 0)
+          dst[mid + lastWord] &= lastMask;
+      }
+      long[] t = src;
+      src = dst;
+      dst = t;
+    }
+
+    for (int r = r0; r < r1; r++)
+      System.arraycopy(src, (r - top) * width + (w0 - left), out, r * wpr + w0, w1 - w0);
+  }
+}
@@ -0,0 +1,45 @@
+/*
+  UNIVERSE:
+  A population that steps itself, wherever its cells are kept: SparseUniverse
+  stores the living cells of an unbounded plane in a hash set and HashLife
+  stores the plane as a quadtree that jumps far ahead. Code that only needs
+  to run a population and look at it can take either one.
+
+  Rows and columns are longs so that HashLife's universe fits; a universe
+  with a smaller range treats cells outside it as dead.
+*/
+
+public interface Universe {
+
+  /**
+  * Computes the next generation
+  */
+  void step();
+
+  /**
+  * Advances the universe by the given number of generations
+  */
+  default void advance(long generations) {
+    for (long i = 0; i < generations; i++)
+      step();
+  }
+
+  /**
+  * Returns the number of generations computed since the universe was created
+  */
+  long generation();
+
+  /**
+  * Returns the number of living cells
+  */
+  long population();
+
+  /**
+  * Copies a rectangular window of the universe into a new two-dimensional
+  * boolean array, e.g. for GameOfLifeCLI.printMatrix
+  *
+  * @param  top the row of the universe that becomes row 0
+  * @param  left the column of the universe that becomes column 0
+  */
+  boolean[][] toMatrix(long top, long left, int rows, int cols);
+}
@@ -0,0 +1,128 @@
+/*
+  VECTOR ENGINE:
+  Steps a population with SIMD instructions through the Java Vector API:
+  the neighbor counts of a whole row segment (32 cells with AVX2, 64 with
+  AVX-512) are summed in the byte lanes of one vector and the rule is
+  applied to all of them at once with lane masks. The rows are padded with a
+  halo as in HaloEngine, so the segments never test for the edge of the
+  board, and both topologies are supported.
+
+  The Vector API is the incubator module jdk.incubator.vector, which the JVM
+  only loads when started with --add-modules jdk.incubator.vector. Without
+  it, or on a platform with vectors narrower than 16 bytes, the engine
+  falls back to HaloEngine's scalar loop, with the same results, and
+  isAccelerated() returns false. The vector code lives in
+  VectorRows, which is never loaded unless the module is there.
+
+  Every generation records which rows changed, for changedRows(): the
+  vector loop notes it almost for free, and the fallback uses HaloEngine's
+  counting loop.
+*/
+
+public class VectorEngine implements Engine {
+
+  private static final boolean ACCELERATED =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorRows.isSupported();
+
+  private final boolean torus;
+  private final Rule rule;
+  private final VectorRows vectors; // the rule's lookup vectors, null without the Vector API
+  private byte[][] halo = new byte[3][0];
+  private final long[] counts = new long[3]; // scratch counts of the scalar fallback
+  private boolean[] changed = new boolean[0]; // rows changed by the last generation
+  private boolean[][] lastCurrent; // the population read by the last generation
+  private boolean[][] lastNext;    // the population written by it
+
+  /**
+  * Creates an engine for the given topology and rule. The engine keeps
+  * scratch rows between generations, so use one engine per thread.
+  *
+  * @param  torus true for a toroidal board, false for a dead border
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  public VectorEngine(boolean torus, Rule rule) {
+    this.torus = torus;
+    this.rule = rule;
+    this.vectors = ACCELERATED ? new VectorRows(rule) : null;
+  }
+
+  /**
+  * Creates a Game of Life engine with a dead border
+  */
+  public VectorEngine() {
+    this(false, Rule.LIFE);
+  }
+
+  /**
+  * Returns true if the Vector API is available, false if the engine runs
+  * the scalar fallback
+  */
+  public static boolean isAccelerated() {
+    return ACCELERATED;
+  }
+
+  /**
+  * Returns which rows changed in the generation that stepped current into
+  * next, or null if that was not the engine's last generation
+  */
+  public boolean[] changedRows(boolean[][] current, boolean[][] next) {
+    return (current == lastCurrent && next == lastNext) ? changed : null;
+  }
+
+  /**
+  * Applies the engine's rule to each element in the current population
+  * matrix and places the results in the corresponding element in the next
+  * generation matrix. Current is left unchanged.
+  *
+  * @param  current a two-dimensional boolean array holding the starting
+  *                 population
+  * @param  next a two-dimensional boolean array to be initialized with the next
+  *              generation of the population
+  */
+  public void generate(boolean[][] current, boolean[][] next) {
+    int rows = current.length;
+    int cols = (rows > 0) ? current[0].length : 0;
+    lastCurrent = null;
+    lastNext = null;
+    if (cols == 0)
+      return;
+    if (halo[0].length != cols + 2)
+      halo = new byte[3][cols + 2];
+    if (changed.length != rows)
+      changed = new boolean[rows];
+    byte[] above = halo[0];
+    byte[] row = halo[1];
+    byte[] below = halo[2];
+    int table = rule.countBits();
+    pad(current, -1, above);
+    pad(current, 0, row);
+    for (int r = 0; r < rows; r++) {
+      pad(current, r + 1, below);
+      if (ACCELERATED)
+        changed[r] = vectors.stepRow(above, row, below, next[r]);
+      else
+        changed[r] = HaloEngine.stepRow(above, row, below, next[r], table, counts);
+      byte[] free = above;
+      above = row;
+      row = below;
+      below = free;
+    }
+    lastCurrent = current;
+    lastNext = next;
+  }
+
+  /**
+  * Copies row r of a population into a padded row and fills its halo, as
+  * HaloEngine.pad does, with the copy vectorized where it can be
+  */
+  private void pad(boolean[][] current, int r, byte[] padded) {
+    if (!ACCELERATED || r < 0 || r >= current.length) {
+      HaloEngine.pad(current, r, padded, torus);
+      return;
+    }
+    int cols = current[r].length;
+    VectorRows.load(current[r], padded);
+    padded[0] = torus ? padded[cols] : 0;
+    padded[cols + 1] = torus ? padded[1] : 0;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+  VECTOR ROWS:
+  The Vector API half of VectorEngine, kept in a class of its own so that
+  it is only loaded when the jdk.incubator.vector module is present.
+
+  A row is stepped one segment of SPECIES.length() cells at a time. Each
+  segment loads the padded rows above and below it three times, shifted by
+  one cell, and the row itself shifted left and right, and adds the eight
+  vectors into the cells' neighbor counts. Cells past the last full segment
+  are stepped by the scalar loop. The XOR of each new segment with the old
+  one is ORed into a vector as the row goes, so whether the row changed is
+  known at the cost of one reduction per row.
+
+  RULES:
+  The rule is looked up rather than tested: the counts index two vectors
+  holding the rule's birth and survival entries by count (one shuffle
+  instruction each), and a mask of the living cells picks one of the two
+  results per lane. Every Life-like rule costs the same. The tables need 9
+  lanes, so the engine needs vectors of at least 16 bytes. They are built
+  once, when a VectorEngine creates its VectorRows for its rule.
+*/
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorRows {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+  private final ByteVector born;     // lane n is 1 if n neighbors bring a dead cell to life
+  private final ByteVector survives; // lane n is 1 if a living cell with n neighbors lives on
+  private final int table;           // the rule's scalar table, for the cells past the segments
+
+  /**
+  * Builds the lookup vectors of a rule
+  *
+  * @param  rule the rule to apply, e.g. Rule.LIFE
+  */
+  VectorRows(Rule rule) {
+    this.born = table(rule.birth());
+    this.survives = table(rule.survival());
+    this.table = rule.countBits();
+  }
+
+  /**
+  * Returns true if the platform's vectors are wide enough for the rule tables
+  */
+  static boolean isSupported() {
+    return SPECIES.length() >= 16;
+  }
+
+  /**
+  * Copies a row of cells into a padded row, as 0 or 1 bytes from index 1 on
+  */
+  static void load(boolean[] cells, byte[] padded) {
+    int cols = cells.length;
+    int bound = SPECIES.loopBound(cols);
+    for (int c = 0; c < bound; c += SPECIES.length())
+      ByteVector.fromBooleanArray(SPECIES, cells, c).intoArray(padded, c + 1);
+    for (int c = bound; c < cols; c++)
+      padded[c + 1] = (byte) (cells[c] ? 1 : 0);
+  }
+
+  /**
+  * Computes the next generation of a padded row into out
+  *
+  * @param  above the padded row above, cols + 2 cells
+  * @param  row the padded row
+  * @param  below the padded row below
+  * @param  out the row of the next generation
+  * @return true if any cell of the row changed
+  */
+  boolean stepRow(byte[] above, byte[] row, byte[] below, boolean[] out) {
+    int cols = out.length;
+    int bound = SPECIES.loopBound(cols);
+    ByteVector diff = ByteVector.zero(SPECIES);
+    for (int c = 0; c < bound; c += SPECIES.length()) {
+      ByteVector sum = ByteVector.fromArray(SPECIES, above, c)
+          .add(ByteVector.fromArray(SPECIES, above, c + 1))
+          .add(ByteVector.fromArray(SPECIES, above, c + 2))
+          .add(ByteVector.fromArray(SPECIES, row, c))
+          .add(ByteVector.fromArray(SPECIES, row, c + 2))
+          .add(ByteVector.fromArray(SPECIES, below, c))
+          .add(ByteVector.fromArray(SPECIES, below, c + 1))
+          .add(ByteVector.fromArray(SPECIES, below, c + 2));
+      ByteVector cells = ByteVector.fromArray(SPECIES, row, c + 1);
+      VectorMask<Byte> alive = cells.compare(VectorOperators.NE, 0);
+      ByteVector next = sum.selectFrom(born).blend(sum.selectFrom(survives), alive);
+      next.intoBooleanArray(out, c);
+      diff = diff.or(next.lanewise(VectorOperators.XOR, cells));
+    }
+    boolean changed = diff.compare(VectorOperators.NE, 0).anyTrue();
+    for (int c = bound; c < cols; c++) {
+      int count = above[c] + above[c + 1] + above[c + 2] + row[c] + row[c + 2]
+                + below[c] + below[c + 1] + below[c + 2];
+      out[c] = ((table >>> (row[c + 1] * 9 + count)) & 1) != 0;
+      changed |= out[c] != (row[c + 1] != 0);
+    }
+    return changed;
+  }
+
+  /**
+  * Returns a vector whose lane n is 1 if bit n of counts is set
+  *
+  * @param  counts the counts of a rule's birth or survival set, as bits
+  */
+  private static ByteVector table(int counts) {
+    byte[] lanes = new byte[SPECIES.length()];
+    for (int n = 0; n <= 8; n++)
+      lanes[n] = (byte) ((counts >>> n) & 1);
+    return ByteVector.fromArray(SPECIES, lanes, 0);
+  }
+}
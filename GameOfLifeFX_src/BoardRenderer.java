@@ -0,0 +1,272 @@
+/*
+  BOARD RENDERER:
+  Draws the part of a population that is in view onto a single Canvas the
+  size of the window, instead of one Rectangle node per cell. The view can
+  be zoomed and panned, so boards of any size fit in the window.
+
+  ZOOM:
+  The zoom level z is a power of two. At z >= 0 a cell is drawn as a square
+  of 2^z pixels, up to 32x32 at MAX_ZOOM. At z < 0 a pixel covers a square
+  of 2^-z cells and is shaded from white to black by the fraction of them
+  that are alive, down to 1024x1024 cells per pixel at MIN_ZOOM. A pixel
+  samples at most SAMPLES x SAMPLES evenly spaced cells of its square, so
+  the work of a frame depends on the size of the window, never on the size
+  of the board. The area beyond the edges of the board is drawn gray.
+
+  Each square of the view, a cell or a pixel, is painted into an ARGB pixel
+  buffer the size of the canvas. The renderer keeps the color it last
+  painted every square, and while the view stays put only the squares whose
+  color changed are repainted and the smallest rectangle holding them is
+  written to the canvas in one call. Panning, zooming or resizing repaints
+  the whole view.
+*/
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritablePixelFormat;
+
+public class BoardRenderer {
+
+  static final int MAX_ZOOM = 5;   // 32x32 pixels per cell
+  static final int MIN_ZOOM = -10; // 1024x1024 cells per pixel
+  private static final int SAMPLES = 4; // cells sampled along each side of a pixel
+
+  private static final int ALIVE = 0xFF000000;   // opaque black
+  private static final int DEAD = 0xFFFFFFFF;    // opaque white
+  private static final int OUTSIDE = 0xFFC0C0C0; // opaque light gray
+
+  private final Canvas canvas;
+  private final WritablePixelFormat<IntBuffer> format = PixelFormat.getIntArgbPreInstance();
+  private int width;
+  private int height;
+  private int[] pixels;
+  private int[] drawn = new int[0]; // the color of every square of the view, row by row
+  private int zoom;
+  private double top;  // the row of the board at the top edge of the canvas
+  private double left; // the column of the board at the left edge of the canvas
+  private boolean blank = true; // the view changed since the last frame
+
+  /**
+  * Creates a renderer for a canvas of the given size, showing the top left
+  * corner of the board
+  *
+  * @param  width the width of the canvas in pixels
+  * @param  height the height of the canvas in pixels
+  * @param  zoom the zoom level, MIN_ZOOM to MAX_ZOOM; 0 draws a cell as
+  *              one pixel
+  */
+  public BoardRenderer(int width, int height, int zoom) {
+    this.canvas = new Canvas(width, height);
+    this.zoom = clamp(zoom);
+    this.width = Math.max(1, width);
+    this.height = Math.max(1, height);
+    resize(width, height);
+  }
+
+  public Canvas getCanvas() {
+    return canvas;
+  }
+
+  public int getZoom() {
+    return zoom;
+  }
+
+  /**
+  * Returns true if the view was panned, zoomed or resized since it was
+  * last drawn, so the board has to be drawn again even if it is unchanged
+  */
+  public boolean viewChanged() {
+    return blank;
+  }
+
+  /**
+  * Resizes the canvas, keeping the cell at its middle in place
+  *
+  * @param  width the new width of the canvas in pixels
+  * @param  height the new height of the canvas in pixels
+  */
+  public void resize(int width, int height) {
+    width = Math.max(1, width);
+    height = Math.max(1, height);
+    top += (this.height - height) / 2.0 / scale(zoom);
+    left += (this.width - width) / 2.0 / scale(zoom);
+    this.width = width;
+    this.height = height;
+    canvas.setWidth(this.width);
+    canvas.setHeight(this.height);
+    pixels = new int[this.width * this.height];
+    blank = true;
+  }
+
+  /**
+  * Moves the view by the given number of pixels, e.g. as the mouse drags it
+  *
+  * @param  dx the pixels to move the board to the right
+  * @param  dy the pixels to move the board down
+  */
+  public void pan(double dx, double dy) {
+    double scale = scale(zoom);
+    left -= dx / scale;
+    top -= dy / scale;
+    blank = true;
+  }
+
+  /**
+  * Zooms in or out by the given number of levels, keeping the cell under
+  * the pixel (x, y) in place
+  *
+  * @param  levels the number of levels to zoom in, negative to zoom out
+  * @param  x the column of the pixel that stays put
+  * @param  y the row of the pixel that stays put
+  */
+  public void zoom(int levels, double x, double y) {
+    int zoomed = clamp(zoom + levels);
+    if (zoomed == zoom)
+      return;
+    double row = top + y / scale(zoom);
+    double col = left + x / scale(zoom);
+    zoom = zoomed;
+    top = row - y / scale(zoom);
+    left = col - x / scale(zoom);
+    blank = true;
+  }
+
+  /**
+  * Zooms and pans the view so that the whole board fits in the canvas, at
+  * its middle
+  *
+  * @param  rows the number of rows in the board
+  * @param  cols the number of columns in the board
+  */
+  public void fit(int rows, int cols) {
+    zoom = MAX_ZOOM;
+    while (zoom > MIN_ZOOM && (rows * scale(zoom) > height || cols * scale(zoom) > width))
+      zoom--;
+    top = rows / 2.0 - height / 2.0 / scale(zoom);
+    left = cols / 2.0 - width / 2.0 / scale(zoom);
+    blank = true;
+  }
+
+  /**
+  * Draws the part of the board in view, black for living cells and white
+  * for dead ones, or shaded by density when zoomed out. Only the squares of
+  * the view that changed since the last call are repainted.
+  *
+  * @param  population a two-dimensional boolean array
+  */
+  public void draw(boolean[][] population) {
+    int size = (zoom >= 0) ? 1 << zoom : 1;   // pixels along the side of a square
+    int cells = (zoom >= 0) ? 1 : 1 << -zoom; // cells along the side of a square
+    // the square at the top left corner, and where on the canvas it starts
+    long firstRow = (long) Math.floor(top / cells);
+    long firstCol = (long) Math.floor(left / cells);
+    int y0 = (int) Math.floor((firstRow * cells - top) * scale(zoom));
+    int x0 = (int) Math.floor((firstCol * cells - left) * scale(zoom));
+    int squareRows = (height - y0 + size - 1) / size;
+    int squareCols = (width - x0 + size - 1) / size;
+    if (drawn.length < squareRows * squareCols)
+      drawn = new int[squareRows * squareCols];
+    if (blank)
+      Arrays.fill(drawn, 0); // no color is fully transparent, so every square is painted
+
+    int dirtyTop = height;
+    int dirtyLeft = width;
+    int dirtyBottom = -1;
+    int dirtyRight = -1;
+    for (int i = 0; i < squareRows; i++) {
+      long row = (firstRow + i) * cells;
+      int y = y0 + i * size;
+      for (int j = 0; j < squareCols; j++) {
+        int argb = shade(population, row, (firstCol + j) * cells, cells);
+        int square = i * squareCols + j;
+        if (drawn[square] == argb)
+          continue;
+        drawn[square] = argb;
+        int x = x0 + j * size;
+        paintSquare(x, y, size, argb);
+        dirtyTop = Math.min(dirtyTop, Math.max(0, y));
+        dirtyLeft = Math.min(dirtyLeft, Math.max(0, x));
+        dirtyBottom = Math.max(dirtyBottom, Math.min(height, y + size) - 1);
+        dirtyRight = Math.max(dirtyRight, Math.min(width, x + size) - 1);
+      }
+    }
+    blank = false;
+    if (dirtyBottom < 0)
+      return;
+
+    PixelWriter writer = canvas.getGraphicsContext2D().getPixelWriter();
+    writer.setPixels(dirtyLeft, dirtyTop, dirtyRight - dirtyLeft + 1, dirtyBottom - dirtyTop + 1,
+                     format, pixels, dirtyTop * width + dirtyLeft, width);
+  }
+
+  /**
+  * Returns the color of the square of cells x cells cells whose top left
+  * cell is (row, col): black or white for a single cell, otherwise a gray
+  * as dark as the fraction of the sampled cells that are alive
+  */
+  private static int shade(boolean[][] population, long row, long col, int cells) {
+    int rows = population.length;
+    int cols = (rows > 0) ? population[0].length : 0;
+    if (row + cells <= 0 || row >= rows || col + cells <= 0 || col >= cols)
+      return OUTSIDE;
+    if (cells == 1)
+      return population[(int) row][(int) col] ? ALIVE : DEAD;
+
+    // the samples are spaced step cells apart, from the middle of the first
+    // step, and only those on the board are counted
+    int step = Math.max(1, cells / SAMPLES);
+    int fromRow = first(row + step / 2, step);
+    int toRow = (int) Math.min(rows, row + cells);
+    int fromCol = first(col + step / 2, step);
+    int toCol = (int) Math.min(cols, col + cells);
+    int alive = 0;
+    int sampled = 0;
+    for (int r = fromRow; r < toRow; r += step) {
+      boolean[] cellsOfRow = population[r];
+      for (int c = fromCol; c < toCol; c += step) {
+        alive += cellsOfRow[c] ? 1 : 0; // no branch to mispredict on a soup
+        sampled++;
+      }
+    }
+    if (sampled == 0)
+      return OUTSIDE;
+    int gray = 255 - (255 * alive + sampled / 2) / sampled;
+    return 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+  }
+
+  /**
+  * Returns the first of the indexes start, start + step, ... that is not
+  * negative
+  */
+  private static int first(long start, int step) {
+    if (start >= 0)
+      return (int) start;
+    return (int) (start + (-start + step - 1) / step * step);
+  }
+
+  /**
+  * Fills the part of a size x size square at (x, y) that is on the canvas
+  */
+  private void paintSquare(int x, int y, int size, int argb) {
+    int fromX = Math.max(0, x);
+    int toX = Math.min(width, x + size);
+    for (int py = Math.max(0, y); py < Math.min(height, y + size); py++) {
+      int offset = py * width;
+      Arrays.fill(pixels, offset + fromX, offset + toX, argb);
+    }
+  }
+
+  /**
+  * Returns the pixels per cell at a zoom level
+  */
+  private static double scale(int zoom) {
+    return Math.scalb(1.0, zoom);
+  }
+
+  private static int clamp(int zoom) {
+    return Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+  }
+}
@@ -47,39 +47,69 @@
 
 import javafx.application.Application;
 import javafx.scene.Scene;
-import javafx.scene.layout.Pane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.geometry.Pos;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
-import javafx.util.Duration;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Map;
 
 public class GameOfLifeFX extends Application {
   
   private static int rowSize = 50;
   private static int colSize = 50;
-  private static int cellSize = 10;
+  private static int zoom = 3; // 8x8 pixels per cell, unless the board is too large to fit
+  private static int maxViewSize = 800; // pixels along each side of the initial board view
+  private static int tickMillis = 500;
+  private static ParallelEngine parallelEngine = new ParallelEngine();
+  private static ParallelEngine torusParallelEngine = 
+      new ParallelEngine(Runtime.getRuntime().availableProcessors(), true);
+  // only ever used by the simulation thread
+  private static HaloEngine planeEngine = new HaloEngine(false);
+  private static HaloEngine torusEngine = new HaloEngine(true);
+  
+  private SimulationWorker worker;
 
   @Override
   public void start(Stage primaryStage) {
-    boolean[][] population = new boolean[rowSize][colSize];
-    boolean[][] nextPopulation = new boolean[rowSize][colSize];
+    // --width=COLS and --height=ROWS choose the size of the board; as on the 
+    // command line, every seed reaches at most 1 row and 3 columns away from 
+    // the middle, so the board is at least 7 columns by 3 rows
+    Map<String, String> named = getParameters().getNamed();
+    colSize = Math.max(7, Integer.parseInt(named.getOrDefault("width", String.valueOf(colSize))));
+    rowSize = Math.max(3, Integer.parseInt(named.getOrDefault("height", String.valueOf(rowSize))));
+    
+    // the overlay shows births and deaths, so every engine counts them
+    parallelEngine.setCounting(true);
+    torusParallelEngine.setCounting(true);
+    planeEngine.setCounting(true);
+    torusEngine.setCounting(true);
+    worker = new SimulationWorker(rowSize, colSize, planeEngine, tickMillis);
 
     int seedRow = rowSize / 2;
     int seedCol = colSize / 2;
-    int step = 0;
     
     Button btStop = new Button("Stop");
     Button btStart = new Button("Start");
     Button btClear = new Button("Clear");
+    CheckBox cbParallel = new CheckBox("Parallel");
+    CheckBox cbTorus = new CheckBox("Wrap Edges");
+    CheckBox cbFast = new CheckBox("Fast");
+    CheckBox cbStats = new CheckBox("Stats");
+    cbStats.setSelected(true);
     
     Button btAcorn = new Button("Acorn");
     Button btRPent = new Button("R-Pentomino");
@@ -87,61 +117,129 @@ public class GameOfLifeFX extends Application {
     Button btPiPent = new Button("Pi-Pentomino");
     Button btGlider = new Button("Glider");
     Button btBlockGlider = new Button("Block-Glider");
+    Button btLoad = new Button("Load Pattern...");
+    Button btZoomIn = new Button("Zoom In");
+    Button btZoomOut = new Button("Zoom Out");
+    Button btFit = new Button("Fit");
+    
+    FileChooser patternChooser = new FileChooser();
+    patternChooser.setTitle("Load Pattern");
+    patternChooser.getExtensionFilters().addAll(
+        new FileChooser.ExtensionFilter("Life patterns", "*.rle", "*.cells"));
+    
+    int boardWidth = (int) Math.min(maxViewSize, (long) colSize << zoom);
+    int boardHeight = (int) Math.min(maxViewSize, (long) rowSize << zoom);
+    BoardRenderer board = new BoardRenderer(boardWidth, boardHeight, zoom);
+    board.fit(rowSize, colSize);
+    
+    // the metrics of the drawn generation, over the top left corner of the board
+    Text stats = new Text();
+    stats.setFill(Color.RED);
+    stats.setMouseTransparent(true);
+    StackPane boardPane = new StackPane(board.getCanvas(), stats);
+    StackPane.setAlignment(stats, Pos.TOP_LEFT);
+    // the board takes whatever room the window has, and the canvas follows it
+    boardPane.setMinSize(0, 0);
+    VBox.setVgrow(boardPane, Priority.ALWAYS);
+    boardPane.widthProperty().addListener((o, before, after) -> 
+        board.resize(after.intValue(), (int) boardPane.getHeight()));
+    boardPane.heightProperty().addListener((o, before, after) -> 
+        board.resize((int) boardPane.getWidth(), after.intValue()));
+    
+    // drag to pan, scroll to zoom around the mouse pointer
+    double[] dragFrom = new double[2];
+    board.getCanvas().setOnMousePressed((MouseEvent e) -> {
+      dragFrom[0] = e.getX();
+      dragFrom[1] = e.getY();
+    });
+    board.getCanvas().setOnMouseDragged((MouseEvent e) -> {
+      board.pan(e.getX() - dragFrom[0], e.getY() - dragFrom[1]);
+      dragFrom[0] = e.getX();
+      dragFrom[1] = e.getY();
+    });
+    board.getCanvas().setOnScroll((ScrollEvent e) -> {
+      if (e.getDeltaY() != 0)
+        board.zoom(e.getDeltaY() > 0 ? 1 : -1, e.getX(), e.getY());
+    });
+    btZoomIn.setOnAction((ActionEvent e) -> 
+        board.zoom(1, board.getCanvas().getWidth() / 2, board.getCanvas().getHeight() / 2));
+    btZoomOut.setOnAction((ActionEvent e) -> 
+        board.zoom(-1, board.getCanvas().getWidth() / 2, board.getCanvas().getHeight() / 2));
+    btFit.setOnAction((ActionEvent e) -> board.fit(rowSize, colSize));
     
-    Pane board = new Pane();
-    drawBoard(board, population);
+    // draw the latest generation published by the worker on every pulse, and 
+    // the one already shown again when the view moves
+    AnimationTimer renderer = new AnimationTimer() {
+      private SimulationWorker.Snapshot shown;
       
-    EventHandler<ActionEvent> generateEvent = e -> {
-      generate(population, nextPopulation);    
-      drawBoard(board, population);
+      @Override
+      public void handle(long now) {
+        SimulationWorker.Snapshot snapshot = worker.poll();
+        if (snapshot != null) {
+          if (shown != null)
+            worker.release(shown);
+          shown = snapshot;
+          stats.setText(statsText(snapshot));
+        } else if (shown == null || !board.viewChanged()) {
+          return;
+        }
+        drawBoard(board, shown.cells);
+      }
     };
     
-    Timeline tick = new Timeline(
-      new KeyFrame(Duration.millis(500), generateEvent));
-    tick.setCycleCount(Timeline.INDEFINITE);
+    btStop.setOnAction((ActionEvent e) -> worker.setRunning(false));
+    btStart.setOnAction((ActionEvent e) -> worker.setRunning(true));
     
-    btStop.setOnAction((ActionEvent e) -> tick.stop());
-    btStart.setOnAction((ActionEvent e) -> tick.play());
+    cbParallel.setOnAction((ActionEvent e) -> selectEngine(cbParallel.isSelected(), cbTorus.isSelected()));
+    cbTorus.setOnAction((ActionEvent e) -> selectEngine(cbParallel.isSelected(), cbTorus.isSelected()));
+    cbFast.setOnAction((ActionEvent e) -> worker.setDelay(cbFast.isSelected() ? 0 : tickMillis));
+    cbStats.setOnAction((ActionEvent e) -> stats.setVisible(cbStats.isSelected()));
     
-    btClear.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btClear.setOnAction((ActionEvent e) -> worker.edit(p -> seed(p, "wasteland", seedRow, seedCol)));
     
-    btAcorn.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "acorn", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btAcorn.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "acorn", seedRow, seedCol);
+    }));
     
-    btRPent.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "r-pentomino", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btRPent.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "r-pentomino", seedRow, seedCol);
+    }));
     
-    btBHept.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "b-heptomino", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btBHept.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "b-heptomino", seedRow, seedCol);
+    }));
     
-    btPiPent.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "pi-heptomino", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btPiPent.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "pi-heptomino", seedRow, seedCol);
+    }));
     
-    btGlider.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "glider", seedRow, seedCol);
-      drawBoard(board, population);
-    });
+    btGlider.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "glider", seedRow, seedCol);
+    }));
+    
+    btBlockGlider.setOnAction((ActionEvent e) -> worker.edit(p -> {
+      seed(p, "wasteland", seedRow, seedCol);
+      seed(p, "block-glider", seedRow, seedCol);
+    }));
     
-    btBlockGlider.setOnAction((ActionEvent e) -> {
-      seed(population, "wasteland", seedRow, seedCol);
-      seed(population, "block-glider", seedRow, seedCol);
-      drawBoard(board, population);
+    // the file is read on the simulation thread, keeping the window responsive
+    btLoad.setOnAction((ActionEvent e) -> {
+      File file = patternChooser.showOpenDialog(primaryStage);
+      if (file == null)
+        return;
+      worker.edit(p -> {
+        seed(p, "wasteland", seedRow, seedCol);
+        try {
+          seed(p, file.getPath(), seedRow, seedCol);
+        } catch (UncheckedIOException ex) {
+          System.err.println(ex.getMessage());
+        }
+      });
     });
     
     // Place controls into panes:
@@ -153,26 +251,68 @@ public class GameOfLifeFX extends Application {
     HBox seedControls2 = new HBox();
     seedControls2.setSpacing(10);
     seedControls2.setAlignment(Pos.CENTER);
-    seedControls2.getChildren().addAll(btPiPent, btGlider, btBlockGlider);
+    seedControls2.getChildren().addAll(btPiPent, btGlider, btBlockGlider, btLoad);
     
     HBox mainControls = new HBox();
     mainControls.setSpacing(10);
     mainControls.setAlignment(Pos.CENTER);
-    mainControls.getChildren().addAll(btStop, btStart, btClear);
+    mainControls.getChildren().addAll(btStop, btStart, btClear, cbParallel, cbTorus, cbFast, cbStats);
+    
+    HBox viewControls = new HBox();
+    viewControls.setSpacing(10);
+    viewControls.setAlignment(Pos.CENTER);
+    viewControls.getChildren().addAll(btZoomIn, btZoomOut, btFit);
     
     VBox main = new VBox();
     main.setSpacing(10);
     main.setAlignment(Pos.CENTER);
-    main.getChildren().addAll(board, seedControls1, seedControls2, mainControls);    
+    main.getChildren().addAll(boardPane, seedControls1, seedControls2, mainControls, viewControls);    
     
-    int sceneHeight = (rowSize * cellSize) + 120;
-    int sceneWidth = colSize * cellSize;
+    // the controls take at least 500 pixels across
+    int sceneHeight = boardHeight + 160;
+    int sceneWidth = Math.max(500, boardWidth);
     
     Scene scene = new Scene(main, sceneWidth, sceneHeight);
     primaryStage.setTitle("Conway's Game of Life");
     primaryStage.setScene(scene);
-    primaryStage.setResizable(false);
     primaryStage.show();
+    
+    worker.start();
+    renderer.start();
+  }
+  
+  /**
+  * Hands the worker the engine for the chosen threading and topology
+  *
+  * @param  parallel step on all processors instead of the simulation thread
+  * @param  torus wrap the edges of the board around instead of a dead border
+  */
+  private void selectEngine(boolean parallel, boolean torus) {
+    if (parallel)
+      worker.setEngine(torus ? torusParallelEngine : parallelEngine);
+    else
+      worker.setEngine(torus ? torusEngine : planeEngine);
+  }
+  
+  /**
+  * Returns the overlay text for a snapshot: its generation, population, 
+  * births and deaths, and how long the steps took
+  */
+  private static String statsText(SimulationWorker.Snapshot snapshot) {
+    return String.format("Generation %d  Population %d  Births %d  Deaths %d%n"
+        + "Step %.1f us  p50 %.1f us  p99 %.1f us", snapshot.generation, snapshot.population, 
+        snapshot.births, snapshot.deaths, snapshot.nanos / 1e3, snapshot.p50 / 1e3, snapshot.p99 / 1e3);
+  }
+  
+  /**
+  * Stops the simulation thread and the parallel engines' worker threads
+  * when the window is closed
+  */
+  @Override
+  public void stop() {
+    worker.shutdown();
+    parallelEngine.shutdown();
+    torusParallelEngine.shutdown();
   }
    
   /**
@@ -183,29 +323,38 @@ public class GameOfLifeFX extends Application {
   }
    
   /**
-  * Draws the game of life board by converting the two-dimensional boolean array
-  * into a two-dimensional grid of black (living) and white (dead) square rectangles
+  * Draws the game of life board by painting the part of the two-dimensional 
+  * boolean array in view onto the renderer's canvas as black (living) and 
+  * white (dead) squares, or gray pixels when zoomed out. Only squares that 
+  * changed since the last call are repainted.
   *
-  * @param  board the pane to display the graphical representation of a two-dimensional boolean array
+  * @param  board the renderer that displays the graphical representation of a two-dimensional boolean array
   * @param  population a two-dimensional boolean array
   */
-  public static void drawBoard(Pane board, boolean[][] population) {
-    for (int i = 0; i < rowSize; i++) {
-     for (int j = 0; j < colSize; j++) {
-      Rectangle rec = new Rectangle(cellSize * j, cellSize * i, cellSize, cellSize);
-      if (population[i][j])
-       rec.setFill(Color.BLACK);
-      else
-       rec.setFill(Color.WHITE);
-      board.getChildren().add(rec);
-     }
+  public static void drawBoard(BoardRenderer board, boolean[][] population) {
+    board.draw(population);
+  }
+   
+  /**
+  * Returns the number of living cells in a population
+  *
+  * @param  population a two-dimensional boolean array
+  */
+  public static long population(boolean[][] population) {
+    long count = 0;
+    for (boolean[] row : population) {
+      for (boolean cell : row) {
+        if (cell)
+          count++;
+      }
     }
+    return count;
   }
    
   /**
   * Applies the Game of Life rules to each element in the current population 
   * matrix and places the results in the corresponding element in the next 
-  * generation matrix.
+  * generation matrix. Current is left unchanged.
   *
   * @param  current a two-dimensional boolean array holding the starting 
   *                 population
@@ -214,18 +363,16 @@ public class GameOfLifeFX extends Application {
   *              been applied to each cell in current.
   */
   public static void generate(boolean[][] current, boolean[][] next) {
-    for (int row = 0; row < current.length; row++) {
-      for (int col = 0; col < current[row].length; col++) {
-        next[row][col] = checkNeighbors(getNeighborhood(current, row, col));
-      }
-    }
-    copyMatrix(current, next);
+    CountingEngine.generate(current, next);
   }
 
   /**
   * Seeds a given population with initial values. True = alive, False = dead
   *
   * @param  population a two-dimensional boolean array 
+  * @param  seed the name of a seed pattern, or a .rle or .cells pattern file 
+  *              to plant with its middle at (row, col); cells that do not fit 
+  *              on the board are dropped
   */
   private static void seed(boolean[][] population, String seed, int row, int col) {
     //System.out.print("Initialize: " + seed);
@@ -244,355 +391,11 @@ public class GameOfLifeFX extends Application {
                            break;
       case "wasteland":    Seeds.wasteland(population);
                            break;
-      default:             Seeds.wasteland(population);
+      default:             if (PatternReader.isPatternFile(seed))
+                             PatternReader.plant(Paths.get(seed), population, row, col);
+                           else
+                             Seeds.wasteland(population);
                            break;
     }
   }
-  
-  /**
-  * Initializes a 2-dimensional boolean array of any dimension with the values
-  * of an identically sized 2D boolean array 
-  *
-  * @param  old a 2-dimensional boolean array to be written
-  * @param  copy a 2-dimension boolean array to copy
-  */
-  private static void copyMatrix(boolean[][] old, boolean[][] copy) {
-    for (int i = 0; i < old.length; i++)
-    for (int j = 0; j < old[i].length; j++)
-    old[i][j] = copy[i][j];
-  }
-    
-  /**
-  * Iterates through each element in a 3x3 matrix, except the middle "cell" (1,1), and
-  * tallies the number of living (true) cells found.
-  *
-  * Function returns true if the cell has three living neighbors.
-  *
-  * Function returns false if the cell has greater than or less than three living neighbors.
-  *
-  * @param  neighborhood a two-dimensional boolean array consisting of a cell from the
-  *                      main population and it's surrounding neighbors.
-  */  
-  private static boolean checkNeighbors(boolean[][] neighborhood) {
-    int count = 0;
-    for (int i = 0; i < neighborhood.length; i++) {
-      for (int j = 0; j < neighborhood[i].length; j++) {
-        if (!(i == 1 && j == 1) && neighborhood[i][j]) {
-          count++;
-        }
-      }
-    }
-    if (neighborhood[1][1] == true && count < 2) // loneliness: cell dies from underpopulation
-      return false;
-    else if (neighborhood[1][1] == true && (count == 2 || count == 3)) // stasis: live cell continues to live on to the next generation
-      return true;
-    else if (neighborhood[1][1] == true && count > 3) // overcrowding: live cell dies from overpopulation
-      return false;
-    else if (neighborhood[1][1] == false && count == 3) // reproduction: dead cell is populated with a live cell
-      return true;
-    else if (neighborhood[1][1] == false && (count <= 2 || count > 3)) // conditions where a dead cell stays dead
-      return false;
-    return neighborhood[1][1]; // statement never reaches this point
-  }
-  
-  /**
-  * Initializes a new, two-dimensional boolean array to represent the surrounding neighborhood of 
-  * a cell in row, col of the population
-  *
-  * @param  population a two-dimensional boolean array
-  * @param  row the row position of the element in population
-  * @param  col the column position of the cell in population
-  */
-  private static boolean[][] getNeighborhood(boolean[][] population, int row, int col) {
-    boolean[][] neighborhood = new boolean[3][3];
-    if (row == 0 && col == 0)
-      buildNWCorner(population, neighborhood, row, col);
-    else if (row == 0 && col == population[row].length - 1)
-      buildNECorner(population, neighborhood, row, col);
-    else if (row == (population.length - 1) && col == (population[population.length - 1].length - 1))
-      buildSECorner(population, neighborhood, row, col);
-    else if (row == (population.length - 1) && col == 0)
-      buildSWCorner(population, neighborhood, row, col);
-    else if (row == 0)
-      buildNorthEdge(population, neighborhood, row, col);
-    else if (col == (population[row].length - 1))
-      buildEastEdge(population, neighborhood, row, col);
-    else if (row == (population.length - 1))
-      buildSouthEdge(population, neighborhood, row, col);
-    else if (col == 0)
-      buildWestEdge(population, neighborhood, row, col);
-    else
-      buildNeighborhood(population, neighborhood, row, col);
-    return neighborhood;  
-}
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from a given cell (*) at position row = i, col = j in a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  REGULAR NEIGHBORHOOD:
-  *  -------------------
-  *  | 0,0 | 0,1 | 0,2 |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  | 2,0 | 2,1 | 2,2 |
-  *  -------------------
-  */
-  private static void buildNeighborhood(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the north-west corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  NW CORNER CELL:
-  *  row = 0, column = 0
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     | 2,1 | 2,2 |
-  *  -------------------
-  */  
-  private static void buildNWCorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = false;
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the north-east corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  NE CORNER CELL NEIGHBORHOOD:
-  *  row = 0, column = population[0].length
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  | 2,0 | 2,1 |     |
-  *  -------------------
-  */
-  private static void buildNECorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = false;
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = false;  
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the south-east corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  SE CORNER CELL:
-  *  row = population.length, column = population[population.length].length
-  *  -------------------
-  *  | 0,0 | 0,1 |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSECorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = false;
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from the cell (*) in the south-west corner of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  SW CORNER CELL:
-  *  row = population.length - 1, column = 0
-  *  -------------------
-  *  |     | 0,1 | 0,2 |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSWCorner(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = false;
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the north edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  NORTH EDGE CELLS:
-  *  row = 0
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  | 2,0 | 2,1 | 2,2 |
-  *  -------------------
-  */
-  private static void buildNorthEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = false;
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the east edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  EAST EDGE CELLS:
-  *  column = population[population.length - 1].length - 1
-  *  -------------------
-  *  | 0,0 | 0,1 |     |
-  *  -------------------
-  *  | 1,0 |  *  |     |
-  *  -------------------
-  *  | 2,0 | 2,1 |     |
-  *  -------------------
-  */
-  private static void buildEastEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = false;
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = false;
-    n[2][0] = p[i + 1][j - 1];
-    n[2][1] = p[i + 1][j];
-    n[2][2] = false;  
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the south edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  SOUTH EDGE CELLS:
-  *  row = population.length - 1
-  *  -------------------
-  *  | 0,0 | 0,1 | 0,2 |
-  *  -------------------
-  *  | 1,0 |  *  | 1,2 |
-  *  -------------------
-  *  |     |     |     |
-  *  -------------------
-  */  
-  private static void buildSouthEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = p[i - 1][j - 1];
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = p[i][j - 1];
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = false;
-    n[2][2] = false;  
-  }
-  
-  /**
-  * Initializes a 3x3 neighborhood with elements from a cell (*) on the west edge of a given population 
-  *
-  * @param  p the entire population
-  * @param  n the 3x3 neighborhood array undergoing initialization
-  * @param  i the row position of the cell
-  * @param  j the column position of the cell
-  *
-  *  WEST EDGE CELLS:
-  *  column = 0
-  *  -------------------
-  *  |     | 0,1 | 0,2 |
-  *  -------------------
-  *  |     |  *  | 1,2 |
-  *  -------------------
-  *  |     | 2,1 | 2,2 |
-  *  -------------------
-  */
-  private static void buildWestEdge(boolean[][] p, boolean[][] n, int i, int j) {
-    n[0][0] = false;
-    n[0][1] = p[i - 1][j];
-    n[0][2] = p[i - 1][j + 1];
-    n[1][0] = false;
-    n[1][1] = p[i][j];
-    n[1][2] = p[i][j + 1];
-    n[2][0] = false;
-    n[2][1] = p[i + 1][j];
-    n[2][2] = p[i + 1][j + 1];  
-  }
-  
 }
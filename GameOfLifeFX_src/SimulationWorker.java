@@ -0,0 +1,239 @@
+/*
+  SIMULATION WORKER:
+  Runs the simulation on its own thread so that the JavaFX application
+  thread only ever draws. The worker owns the population; other threads
+  change it by queueing edits (e.g. seeding), which the worker applies
+  between generations. An edit that throws is reported on standard error
+  and the worker carries on.
+
+  After every generation the worker publishes a Snapshot, a copy of the
+  population that is never written again until it is released. Only the
+  latest snapshot is kept: if the renderer has not taken the previous one
+  yet, it is dropped and its array reused, so a slow renderer simply skips
+  frames instead of slowing down the simulation.
+
+  Each snapshot also carries the metrics of its generation: the population,
+  births and deaths the engine counted (only the population, counted
+  afresh, if the engine does not count), the time the step took, and the
+  median and 99th percentile of the step times since the board was last
+  edited, taken from a LatencyHistogram.
+*/
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class SimulationWorker implements Runnable {
+
+  private final GenerationBuffer<boolean[][]> generations;
+  private final AtomicReference<Snapshot> latest = new AtomicReference<>();
+  private final ConcurrentLinkedQueue<Consumer<boolean[][]>> edits = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<boolean[][]> spare = new ConcurrentLinkedQueue<>();
+  private final Object lock = new Object();
+  private final Thread thread;
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private long percentilesAt;   // when the percentiles below were taken
+  private long p50;
+  private long p99;
+
+  private volatile Engine engine;
+  private volatile long delayMillis;
+  private volatile boolean running;
+  private volatile boolean shutdown;
+
+  /**
+  * Creates a paused worker for a dead population of the given size
+  *
+  * @param  rows the number of rows in the population
+  * @param  cols the number of columns in the population
+  * @param  engine computes each generation, e.g. a HaloEngine
+  * @param  delayMillis the minimum time between generations, 0 for none
+  */
+  public SimulationWorker(int rows, int cols, Engine engine, long delayMillis) {
+    this.generations = GenerationBuffer.ofMatrix(rows, cols);
+    this.engine = engine;
+    this.delayMillis = delayMillis;
+    this.thread = new Thread(this, "simulation");
+    this.thread.setDaemon(true);
+    publish(0, 0, 0, 0);
+  }
+
+  public void start() {
+    thread.start();
+  }
+
+  /**
+  * Starts or pauses the simulation. Returns immediately.
+  */
+  public void setRunning(boolean running) {
+    this.running = running;
+    wake();
+  }
+
+  /**
+  * Replaces the engine from the next generation on
+  */
+  public void setEngine(Engine engine) {
+    this.engine = engine;
+  }
+
+  public void setDelay(long delayMillis) {
+    this.delayMillis = delayMillis;
+    wake();
+  }
+
+  /**
+  * Queues a change to the population. The worker applies it before the next
+  * generation and publishes the result even while paused.
+  *
+  * @param  edit receives the current population to modify
+  */
+  public void edit(Consumer<boolean[][]> edit) {
+    edits.add(edit);
+    wake();
+  }
+
+  /**
+  * Returns the latest unseen snapshot, or null if nothing changed since the
+  * last call. Pass the snapshot to release() once it has been drawn.
+  */
+  public Snapshot poll() {
+    return latest.getAndSet(null);
+  }
+
+  /**
+  * Hands a snapshot's array back to the worker for reuse
+  */
+  public void release(Snapshot snapshot) {
+    spare.add(snapshot.cells);
+  }
+
+  /**
+  * Stops the worker thread and waits for it to finish the generation it is
+  * computing, so that its engine can then be shut down
+  */
+  public void shutdown() {
+    shutdown = true;
+    wake();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!shutdown) {
+      boolean edited = false;
+      Consumer<boolean[][]> edit;
+      while ((edit = edits.poll()) != null) {
+        // a failed edit must not end the thread, or the window would freeze
+        try {
+          edit.accept(generations.current());
+        } catch (RuntimeException e) {
+          System.err.println("edit failed: " + e);
+        }
+        edited = true;
+      }
+      if (edited) {
+        generations.resetGeneration();
+        latency.reset();
+        percentilesAt = 0;
+      }
+
+      if (running) {
+        Engine engine = this.engine;
+        long start = System.nanoTime();
+        generations.advance(engine::generate);
+        long nanos = System.nanoTime() - start;
+        latency.record(nanos);
+        GenerationStats stats = engine.stats();
+        if (stats != null)
+          publish(stats.population(), stats.births(), stats.deaths(), nanos);
+        else
+          publish(GameOfLifeFX.population(generations.current()), 0, 0, nanos);
+        pause(delayMillis - (System.nanoTime() - start) / 1_000_000);
+      } else if (edited) {
+        publish(GameOfLifeFX.population(generations.current()), 0, 0, 0);
+      } else {
+        pause(0);
+      }
+    }
+  }
+
+  /**
+  * Waits until woken, or for at most millis milliseconds if millis is
+  * positive. Returns at once if there is work queued.
+  */
+  private void pause(long millis) {
+    synchronized (lock) {
+      if (shutdown || !edits.isEmpty())
+        return;
+      if (running && millis <= 0)
+        return;
+      try {
+        lock.wait(Math.max(0, millis));
+      } catch (InterruptedException e) {
+        shutdown = true;
+      }
+    }
+  }
+
+  private void wake() {
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  /**
+  * Copies the current population and its metrics into a snapshot and makes
+  * it the latest
+  */
+  private void publish(long population, long births, long deaths, long nanos) {
+    boolean[][] current = generations.current();
+    boolean[][] cells = spare.poll();
+    if (cells == null)
+      cells = new boolean[current.length][current.length > 0 ? current[0].length : 0];
+    for (int row = 0; row < current.length; row++)
+      System.arraycopy(current[row], 0, cells[row], 0, current[row].length);
+    // the percentiles take a scan of the histogram, so refresh them a few times a second
+    long now = System.nanoTime();
+    if (now - percentilesAt > 250_000_000L || percentilesAt == 0) {
+      p50 = latency.percentile(50);
+      p99 = latency.percentile(99);
+      percentilesAt = now;
+    }
+    Snapshot dropped = latest.getAndSet(new Snapshot(cells, generations.generation(), population, 
+                                                     births, deaths, nanos, p50, p99));
+    if (dropped != null)
+      spare.add(dropped.cells);
+  }
+
+  /**
+  * A population at one generation and its metrics. The cells must not be
+  * modified. Times are in nanoseconds.
+  */
+  public static final class Snapshot {
+    public final boolean[][] cells;
+    public final long generation;
+    public final long population;
+    public final long births;
+    public final long deaths;
+    public final long nanos; // the time the step to this generation took, 0 after an edit
+    public final long p50;   // the median step time since the last edit
+    public final long p99;   // the 99th percentile step time since the last edit
+
+    Snapshot(boolean[][] cells, long generation, long population, long births, long deaths, 
+             long nanos, long p50, long p99) {
+      this.cells = cells;
+      this.generation = generation;
+      this.population = population;
+      this.births = births;
+      this.deaths = deaths;
+      this.nanos = nanos;
+      this.p50 = p50;
+      this.p99 = p99;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+  BOARDS:
+  Builds the populations the benchmarks run on: random soups of a given
+  density, and the seed patterns of GameOfLifeCLI planted in the middle of
+  an otherwise dead board.
+*/
+
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+final class Boards {
+
+  private Boards() {
+  }
+
+  /**
+  * Fills a population with living cells at random, using a fixed seed so
+  * that every run of a benchmark starts from the same soup
+  *
+  * @param  population a two-dimensional boolean array to be written
+  * @param  density the probability of a cell being alive
+  */
+  static void soup(boolean[][] population, double density) {
+    SplittableRandom random = new SplittableRandom(42);
+    for (boolean[] row : population) {
+      for (int j = 0; j < row.length; j++)
+        row[j] = random.nextDouble() < density;
+    }
+  }
+
+  /**
+  * Clears a population and plants a seed pattern in its center
+  */
+  static void plant(boolean[][] population, String seed) {
+    for (boolean[] row : population)
+      Arrays.fill(row, false);
+    Life.seed(population, seed, population.length / 2, population[0].length / 2);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+  GENERATE BENCHMARK:
+  Measures one generation of each stepping engine on square random soups
+  from 64x64 to 8192x8192 cells. The soup is rebuilt before every iteration
+  so that each iteration starts from the same density. The two populations
+  are swapped after every generation, as GenerationBuffer does.
+
+  "halo" and "torus" are HaloEngine with a dead border and with wrap-around
+  edges; "counting" is the same dead border stepped with edge checks.
+  "halo-stats" is "halo" counting the population, births and deaths, which
+  shows what the metrics cost. "vector" is VectorEngine; the benchmark JVM
+  is started with the Vector API module, so it runs its SIMD code.
+
+  Run with "-prof gc" to report the allocation rate next to ops/s.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class GenerateBenchmark {
+
+  @Param({"64", "256", "1024", "4096", "8192"})
+  int size;
+
+  @Param({"0.05", "0.25", "0.5"})
+  double density;
+
+  @Param({"counting", "halo", "halo-stats", "torus", "packed", "parallel", "parallel-packed", "active", "vector"})
+  String engine;
+
+  private boolean[][] current;
+  private boolean[][] next;
+  private Object packedCurrent;
+  private Object packedNext;
+  private Object parallel;
+  private Object active;
+  private Object halo;
+  private Object vector;
+
+  @Setup(Level.Trial)
+  public void createBoards() {
+    current = new boolean[size][size];
+    next = new boolean[size][size];
+    if (engine.endsWith("packed")) {
+      packedCurrent = Life.newPackedGrid(size, size);
+      packedNext = Life.newPackedGrid(size, size);
+    }
+    if (engine.startsWith("parallel"))
+      parallel = Life.newParallelEngine();
+    if (engine.startsWith("halo") || engine.equals("torus"))
+      halo = Life.newHaloEngine(engine.equals("torus"));
+    if (engine.equals("vector"))
+      vector = Life.newVectorEngine();
+    if (engine.equals("halo-stats"))
+      Life.setHaloCounting(halo, true);
+  }
+
+  @Setup(Level.Iteration)
+  public void fillBoards() {
+    Boards.soup(current, density);
+    if (packedCurrent != null)
+      Life.loadPackedGrid(packedCurrent, current);
+    if (engine.equals("active"))
+      active = Life.newActiveRegionEngine();
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdown() {
+    if (parallel != null)
+      Life.shutdownParallelEngine(parallel);
+  }
+
+  @Benchmark
+  public void generate() {
+    switch (engine) {
+      case "counting":        Life.countingGenerate(current, next);
+                              swap();
+                              break;
+      case "halo":
+      case "halo-stats":
+      case "torus":           Life.haloGenerate(halo, current, next);
+                              swap();
+                              break;
+      case "packed":          Life.packedGenerate(packedCurrent, packedNext);
+                              swapPacked();
+                              break;
+      case "parallel":        Life.parallelGenerate(parallel, current, next);
+                              swap();
+                              break;
+      case "parallel-packed": Life.parallelGeneratePacked(parallel, packedCurrent, packedNext);
+                              swapPacked();
+                              break;
+      case "active":          Life.activeGenerate(active, current, next);
+                              swap();
+                              break;
+      case "vector":          Life.vectorGenerate(vector, current, next);
+                              swap();
+                              break;
+      default:                throw new IllegalArgumentException("unknown engine: " + engine);
+    }
+  }
+
+  private void swap() {
+    boolean[][] t = current;
+    current = next;
+    next = t;
+  }
+
+  private void swapPacked() {
+    Object t = packedCurrent;
+    packedCurrent = packedNext;
+    packedNext = t;
+  }
+}
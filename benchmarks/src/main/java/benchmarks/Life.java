@@ -0,0 +1,340 @@
+/*
+  LIFE:
+  Gives the benchmarks access to the game of life classes.
+
+  The simulation classes live in the default package, which no class in a
+  named package can refer to, while JMH only accepts benchmarks in a named
+  package. Every method the benchmarks need is therefore looked up once as a
+  MethodHandle held in a static final field, which the JIT treats as a
+  constant and inlines like a direct call. Objects of the simulation classes
+  (PackedGrid, ParallelEngine, ...) are passed around as Object.
+*/
+
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+final class Life {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+  private static final MethodHandle COUNTING_GENERATE;
+  private static final MethodHandle PACKED_GRID_NEW;
+  private static final MethodHandle PACKED_GRID_LOAD;
+  private static final MethodHandle PACKED_GENERATE;
+  private static final MethodHandle PACKED_SOUP;
+  private static final MethodHandle PARALLEL_NEW;
+  private static final MethodHandle PARALLEL_GENERATE;
+  private static final MethodHandle PARALLEL_GENERATE_PACKED;
+  private static final MethodHandle PARALLEL_SHUTDOWN;
+  private static final MethodHandle TILED_NEW;
+  private static final MethodHandle TILED_GENERATE;
+  private static final MethodHandle VECTOR_NEW;
+  private static final MethodHandle VECTOR_GENERATE;
+  private static final MethodHandle HALO_NEW;
+  private static final MethodHandle HALO_GENERATE;
+  private static final MethodHandle HALO_SET_COUNTING;
+  private static final MethodHandle ACTIVE_NEW;
+  private static final MethodHandle ACTIVE_GENERATE;
+  private static final MethodHandle SPARSE_FROM_MATRIX;
+  private static final MethodHandle SPARSE_STEP;
+  private static final MethodHandle HASHLIFE_FROM_MATRIX;
+  private static final MethodHandle HASHLIFE_ADVANCE;
+  private static final MethodHandle PRINT_MATRIX;
+  private static final Map<String, MethodHandle> SEEDS = new HashMap<>();
+
+  static {
+    try {
+      Class<?> counting = Class.forName("CountingEngine");
+      Class<?> packedGrid = Class.forName("PackedGrid");
+      Class<?> packed = Class.forName("PackedEngine");
+      Class<?> parallel = Class.forName("ParallelEngine");
+      Class<?> tiled = Class.forName("TiledEngine");
+      Class<?> halo = Class.forName("HaloEngine");
+      Class<?> vector = Class.forName("VectorEngine");
+      Class<?> active = Class.forName("ActiveRegionEngine");
+      Class<?> sparse = Class.forName("SparseUniverse");
+      Class<?> hashLife = Class.forName("HashLife");
+      Class<?> cli = Class.forName("GameOfLifeCLI");
+      Class<?> seeds = Class.forName("Seeds");
+
+      MethodType step = MethodType.methodType(void.class, boolean[][].class, boolean[][].class);
+      MethodType packedStep = MethodType.methodType(void.class, packedGrid, packedGrid);
+
+      COUNTING_GENERATE = LOOKUP.findStatic(counting, "generate", step);
+      PACKED_GRID_NEW = erase(LOOKUP.findConstructor(packedGrid,
+          MethodType.methodType(void.class, int.class, int.class)));
+      PACKED_GRID_LOAD = erase(LOOKUP.findVirtual(packedGrid, "load",
+          MethodType.methodType(void.class, boolean[][].class)));
+      PACKED_GENERATE = erase(LOOKUP.findStatic(packed, "generate", packedStep));
+      PACKED_SOUP = erase(LOOKUP.findStatic(seeds, "soup",
+          MethodType.methodType(void.class, packedGrid, double.class, long.class)));
+      PARALLEL_NEW = erase(LOOKUP.findConstructor(parallel, MethodType.methodType(void.class)));
+      PARALLEL_GENERATE = erase(LOOKUP.findVirtual(parallel, "generate", step));
+      PARALLEL_GENERATE_PACKED = erase(LOOKUP.findVirtual(parallel, "generate", packedStep));
+      PARALLEL_SHUTDOWN = erase(LOOKUP.findVirtual(parallel, "shutdown", MethodType.methodType(void.class)));
+      TILED_NEW = erase(LOOKUP.findConstructor(tiled, MethodType.methodType(void.class, int.class)));
+      TILED_GENERATE = erase(LOOKUP.findVirtual(tiled, "generate",
+          MethodType.methodType(void.class, packedGrid, packedGrid, int.class)));
+      VECTOR_NEW = erase(LOOKUP.findConstructor(vector, MethodType.methodType(void.class)));
+      VECTOR_GENERATE = erase(LOOKUP.findVirtual(vector, "generate", step));
+      HALO_NEW = erase(LOOKUP.findConstructor(halo, MethodType.methodType(void.class, boolean.class)));
+      HALO_GENERATE = erase(LOOKUP.findVirtual(halo, "generate", step));
+      HALO_SET_COUNTING = erase(LOOKUP.findVirtual(halo, "setCounting",
+          MethodType.methodType(void.class, boolean.class)));
+      ACTIVE_NEW = erase(LOOKUP.findConstructor(active, MethodType.methodType(void.class)));
+      ACTIVE_GENERATE = erase(LOOKUP.findVirtual(active, "generate", step));
+      SPARSE_FROM_MATRIX = erase(LOOKUP.findStatic(sparse, "fromMatrix",
+          MethodType.methodType(sparse, boolean[][].class, int.class, int.class)));
+      SPARSE_STEP = erase(LOOKUP.findVirtual(sparse, "step", MethodType.methodType(void.class)));
+      HASHLIFE_FROM_MATRIX = erase(LOOKUP.findStatic(hashLife, "fromMatrix",
+          MethodType.methodType(hashLife, boolean[][].class, long.class, long.class)));
+      HASHLIFE_ADVANCE = erase(LOOKUP.findVirtual(hashLife, "advance",
+          MethodType.methodType(void.class, long.class)));
+      PRINT_MATRIX = LOOKUP.findStatic(cli, "printMatrix",
+          MethodType.methodType(void.class, boolean[][].class));
+
+      // setup only, so these need not be constants
+      MethodType plant = MethodType.methodType(void.class, boolean[][].class, int.class, int.class);
+      SEEDS.put("r-pentomino", LOOKUP.findStatic(seeds, "initRPentomino", plant));
+      SEEDS.put("b-heptomino", LOOKUP.findStatic(seeds, "initBHeptomino", plant));
+      SEEDS.put("pi-heptomino", LOOKUP.findStatic(seeds, "initPiPentomino", plant));
+      SEEDS.put("acorn", LOOKUP.findStatic(seeds, "initAcorn", plant));
+      SEEDS.put("glider", LOOKUP.findStatic(seeds, "initGlider", plant));
+      SEEDS.put("block-glider", LOOKUP.findStatic(seeds, "initBlockGlider", plant));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private Life() {
+  }
+
+  /**
+  * Replaces every simulation class in a handle's type with Object
+  */
+  private static MethodHandle erase(MethodHandle handle) {
+    MethodType type = handle.type();
+    for (int i = 0; i < type.parameterCount(); i++) {
+      if (isSimulationClass(type.parameterType(i)))
+        type = type.changeParameterType(i, Object.class);
+    }
+    if (isSimulationClass(type.returnType()))
+      type = type.changeReturnType(Object.class);
+    return handle.asType(type);
+  }
+
+  private static boolean isSimulationClass(Class<?> type) {
+    return !type.isPrimitive() && !type.isArray() && type.getPackageName().isEmpty();
+  }
+
+  static void countingGenerate(boolean[][] current, boolean[][] next) {
+    try {
+      COUNTING_GENERATE.invokeExact(current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newPackedGrid(int rows, int cols) {
+    try {
+      return (Object) PACKED_GRID_NEW.invokeExact(rows, cols);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void loadPackedGrid(Object grid, boolean[][] population) {
+    try {
+      PACKED_GRID_LOAD.invokeExact(grid, population);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void packedGenerate(Object current, Object next) {
+    try {
+      PACKED_GENERATE.invokeExact(current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void packedSoup(Object grid, double density, long seed) {
+    try {
+      PACKED_SOUP.invokeExact(grid, density, seed);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newParallelEngine() {
+    try {
+      return (Object) PARALLEL_NEW.invokeExact();
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void parallelGenerate(Object engine, boolean[][] current, boolean[][] next) {
+    try {
+      PARALLEL_GENERATE.invokeExact(engine, current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void parallelGeneratePacked(Object engine, Object current, Object next) {
+    try {
+      PARALLEL_GENERATE_PACKED.invokeExact(engine, current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void shutdownParallelEngine(Object engine) {
+    try {
+      PARALLEL_SHUTDOWN.invokeExact(engine);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newTiledEngine(int depth) {
+    try {
+      return (Object) TILED_NEW.invokeExact(depth);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void tiledGenerate(Object engine, Object current, Object next, int generations) {
+    try {
+      TILED_GENERATE.invokeExact(engine, current, next, generations);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newVectorEngine() {
+    try {
+      return (Object) VECTOR_NEW.invokeExact();
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void vectorGenerate(Object engine, boolean[][] current, boolean[][] next) {
+    try {
+      VECTOR_GENERATE.invokeExact(engine, current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newHaloEngine(boolean torus) {
+    try {
+      return (Object) HALO_NEW.invokeExact(torus);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void haloGenerate(Object engine, boolean[][] current, boolean[][] next) {
+    try {
+      HALO_GENERATE.invokeExact(engine, current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void setHaloCounting(Object engine, boolean counting) {
+    try {
+      HALO_SET_COUNTING.invokeExact(engine, counting);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newActiveRegionEngine() {
+    try {
+      return (Object) ACTIVE_NEW.invokeExact();
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void activeGenerate(Object engine, boolean[][] current, boolean[][] next) {
+    try {
+      ACTIVE_GENERATE.invokeExact(engine, current, next);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newSparseUniverse(boolean[][] population) {
+    try {
+      return (Object) SPARSE_FROM_MATRIX.invokeExact(population, 0, 0);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void sparseStep(Object universe) {
+    try {
+      SPARSE_STEP.invokeExact(universe);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static Object newHashLife(boolean[][] population) {
+    try {
+      return (Object) HASHLIFE_FROM_MATRIX.invokeExact(population, 0L, 0L);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void hashLifeAdvance(Object life, long generations) {
+    try {
+      HASHLIFE_ADVANCE.invokeExact(life, generations);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  static void printMatrix(boolean[][] population) {
+    try {
+      PRINT_MATRIX.invokeExact(population);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  /**
+  * Plants a seed pattern, e.g. "acorn", with its origin at (row, col)
+  */
+  static void seed(boolean[][] population, String seed, int row, int col) {
+    MethodHandle init = SEEDS.get(seed);
+    if (init == null)
+      throw new IllegalArgumentException("unknown seed: " + seed);
+    try {
+      init.invokeExact(population, row, col);
+    } catch (Throwable t) {
+      throw rethrow(t);
+    }
+  }
+
+  private static RuntimeException rethrow(Throwable t) {
+    if (t instanceof RuntimeException)
+      return (RuntimeException) t;
+    if (t instanceof Error)
+      throw (Error) t;
+    return new IllegalStateException(t);
+  }
+}
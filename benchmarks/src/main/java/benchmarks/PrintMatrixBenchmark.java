@@ -0,0 +1,57 @@
+/*
+  PRINT MATRIX BENCHMARK:
+  Measures how many frames per second GameOfLifeCLI.printMatrix can produce.
+  Standard output is replaced by a stream that discards everything, so only
+  the cost of formatting and writing a frame is measured, not the terminal.
+*/
+
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrintMatrixBenchmark {
+
+  @Param({"64", "256", "500"})
+  int size;
+
+  private boolean[][] population;
+  private PrintStream stdout;
+
+  @Setup
+  public void setUp() {
+    population = new boolean[size][size];
+    Boards.soup(population, 0.25);
+    stdout = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.setOut(stdout);
+  }
+
+  @Benchmark
+  public void printMatrix() {
+    Life.printMatrix(population);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+  SEED BENCHMARK:
+  Measures one generation of each engine running one of the six seed
+  patterns from the middle of a 512x512 board (or an unbounded plane for the
+  sparse and HashLife engines). The pattern is replanted before every
+  iteration.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeedBenchmark {
+
+  static final int SIZE = 512;
+
+  @Param({"r-pentomino", "b-heptomino", "pi-heptomino", "acorn", "glider", "block-glider"})
+  String seed;
+
+  @Param({"counting", "packed", "active", "sparse", "hashlife"})
+  String engine;
+
+  private boolean[][] current;
+  private boolean[][] next;
+  private Object packedCurrent;
+  private Object packedNext;
+  private Object active;
+  private Object sparse;
+  private Object hashLife;
+
+  @Setup(Level.Iteration)
+  public void plant() {
+    current = new boolean[SIZE][SIZE];
+    next = new boolean[SIZE][SIZE];
+    Boards.plant(current, seed);
+    switch (engine) {
+      case "packed":   packedCurrent = Life.newPackedGrid(SIZE, SIZE);
+                       packedNext = Life.newPackedGrid(SIZE, SIZE);
+                       Life.loadPackedGrid(packedCurrent, current);
+                       break;
+      case "active":   active = Life.newActiveRegionEngine();
+                       break;
+      case "sparse":   sparse = Life.newSparseUniverse(current);
+                       break;
+      case "hashlife": hashLife = Life.newHashLife(current);
+                       break;
+      default:         break;
+    }
+  }
+
+  @Benchmark
+  public void generate() {
+    switch (engine) {
+      case "counting": Life.countingGenerate(current, next);
+                       swap();
+                       break;
+      case "packed":   Life.packedGenerate(packedCurrent, packedNext);
+                       Object t = packedCurrent;
+                       packedCurrent = packedNext;
+                       packedNext = t;
+                       break;
+      case "active":   Life.activeGenerate(active, current, next);
+                       swap();
+                       break;
+      case "sparse":   Life.sparseStep(sparse);
+                       break;
+      case "hashlife": Life.hashLifeAdvance(hashLife, 1);
+                       break;
+      default:         throw new IllegalArgumentException("unknown engine: " + engine);
+    }
+  }
+
+  private void swap() {
+    boolean[][] t = current;
+    current = next;
+    next = t;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+  TILED BENCHMARK:
+  Measures 16 generations of a packed random soup, stepped either by the
+  row-major sweep of PackedEngine ("packed") or by TiledEngine fusing 1, 4,
+  8 or 16 generations per pass over the board ("tiled-N"). The boards run
+  from 1024x1024 cells (128 KB, inside the L2 cache) to 32768x32768 cells
+  (128 MB), where a row-major sweep streams the board through memory every
+  generation and temporal blocking should pay off. How much depends on the
+  machine's cache sizes and memory bandwidth.
+
+  Each operation is 16 generations, so the ops/s of all engines compare
+  directly.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TiledBenchmark {
+
+  static final int GENERATIONS = 16;
+
+  @Param({"1024", "4096", "16384", "32768"})
+  int size;
+
+  @Param({"packed", "tiled-1", "tiled-4", "tiled-8", "tiled-16"})
+  String engine;
+
+  private Object current;
+  private Object next;
+  private Object tiled;
+  private int depth;
+
+  @Setup(Level.Trial)
+  public void createBoards() {
+    current = Life.newPackedGrid(size, size);
+    next = Life.newPackedGrid(size, size);
+    if (engine.startsWith("tiled-")) {
+      depth = Integer.parseInt(engine.substring("tiled-".length()));
+      tiled = Life.newTiledEngine(depth);
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void fillBoards() {
+    // straight into the packed grid, so the largest board needs no boolean copy
+    Life.packedSoup(current, 0.3, 42);
+  }
+
+  @Benchmark
+  public void generate() {
+    if (tiled == null) {
+      for (int i = 0; i < GENERATIONS; i++) {
+        Life.packedGenerate(current, next);
+        swap();
+      }
+    } else {
+      for (int i = 0; i < GENERATIONS; i += depth) {
+        Life.tiledGenerate(tiled, current, next, depth);
+        swap();
+      }
+    }
+  }
+
+  private void swap() {
+    Object t = current;
+    current = next;
+    next = t;
+  }
+}